@@ -1,18 +1,24 @@
 package ru.practicum.shareit.booking;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.exception.BadRequestException;
 
+import java.util.List;
+
 
 @Controller
 @RequestMapping(path = "/bookings")
@@ -46,6 +52,20 @@ public class BookingController {
         return bookingClient.updateBookingState(userId, bookingId, approved);
     }
 
+    @PatchMapping("/batch")
+    public ResponseEntity<Object> updateBookingStates(@Positive @RequestHeader("X-Sharer-User-Id") Long userId,
+                                                      @RequestBody @NotEmpty @Size(max = 100)
+                                                      List<@Valid BookingDecisionDto> decisions) {
+        long distinctIds = decisions.stream()
+                .map(BookingDecisionDto::getBookingId)
+                .distinct()
+                .count();
+        if (distinctIds != decisions.size()) {
+            throw new BadRequestException("По каждому бронированию можно передать только одно решение");
+        }
+        return bookingClient.updateBookingStates(userId, decisions);
+    }
+
     @GetMapping("/{bookingId}")
     public ResponseEntity<Object> getBookingById(@Positive @RequestHeader("X-Sharer-User-Id") Long userId,
                                                  @Positive @PathVariable Long bookingId) {
@@ -55,13 +75,27 @@ public class BookingController {
 
     @GetMapping()
     public ResponseEntity<Object> getAllBookingsByUser(@Positive @RequestHeader("X-Sharer-User-Id") Long userId,
-                                                       @RequestParam(defaultValue = "ALL") BookingState state) {
-        return bookingClient.getAllBookingsByUser(userId, state);
+                                                       @RequestParam(defaultValue = "ALL") BookingState state,
+                                                       @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
+                                                       @Positive @RequestParam(defaultValue = "10") Integer size) {
+        return bookingClient.getAllBookingsByUser(userId, state, from, size);
     }
 
     @GetMapping("/owner")
     public ResponseEntity<Object> getAllBookingsByOwner(@Positive @RequestHeader("X-Sharer-User-Id") Long userId,
-                                                        @RequestParam(defaultValue = "ALL") BookingState state) {
-        return bookingClient.getAllBookingsByOwner(userId, state);
+                                                        @RequestParam(defaultValue = "ALL") BookingState state,
+                                                        @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
+                                                        @Positive @RequestParam(defaultValue = "10") Integer size) {
+        return bookingClient.getAllBookingsByOwner(userId, state, from, size);
+    }
+
+    @GetMapping("/summary")
+    public ResponseEntity<Object> getBookingSummaryByUser(@Positive @RequestHeader("X-Sharer-User-Id") Long userId) {
+        return bookingClient.getBookingSummaryByUser(userId);
+    }
+
+    @GetMapping("/owner/summary")
+    public ResponseEntity<Object> getBookingSummaryByOwner(@Positive @RequestHeader("X-Sharer-User-Id") Long userId) {
+        return bookingClient.getBookingSummaryByOwner(userId);
     }
 }
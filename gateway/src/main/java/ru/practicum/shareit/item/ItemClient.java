@@ -12,6 +12,8 @@ import ru.practicum.shareit.item.dto.CommentRequestDto;
 import ru.practicum.shareit.item.dto.ItemInDto;
 import ru.practicum.shareit.request.dto.UpdateItemRequest;
 
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.Map;
 
 @Service
@@ -36,17 +38,85 @@ public class ItemClient extends BaseClient {
         return patch("/" + itemId, userId, updateItemRequest);
     }
 
-    public ResponseEntity<Object> getItemsByUserId(Long userId) {
-        return get("", userId);
+    public ResponseEntity<Object> getItemsByUserId(Long userId, Long after, Integer limit) {
+        if (after == null) {
+            return get("?limit={limit}", userId, Map.of("limit", limit));
+        }
+        Map<String, Object> parameters = Map.of(
+                "after", after,
+                "limit", limit
+        );
+        return get("?after={after}&limit={limit}", userId, parameters);
     }
 
     public ResponseEntity<Object> getItemById(Long userId, Long itemId) {
         return get("/" + itemId, userId);
     }
 
-    public ResponseEntity<Object> getItemByText(Long userId, String text) {
-        Map<String, Object> parameters = Map.of("text", text);
-        return get("/search?text={text}", userId, parameters);
+    public ResponseEntity<Object> getItemByText(Long userId, String text, Boolean ranked, Boolean fuzzy,
+                                                LocalDateTime start, LocalDateTime end, Integer from, Integer size) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
+                "text", text,
+                "ranked", ranked,
+                "fuzzy", fuzzy,
+                "from", from,
+                "size", size
+        ));
+        StringBuilder path = new StringBuilder("/search?text={text}&ranked={ranked}&fuzzy={fuzzy}&from={from}&size={size}");
+        // Период передается на сервер, только если задан
+        if (start != null) {
+            parameters.put("start", start);
+            parameters.put("end", end);
+            path.append("&start={start}&end={end}");
+        }
+        return get(path.toString(), userId, parameters);
+    }
+
+    public ResponseEntity<Object> getItemsByTextFaceted(Long userId, String text, Boolean available, Boolean hasRequest,
+                                                        Long ownerId, Integer from, Integer size) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
+                "text", text,
+                "from", from,
+                "size", size
+        ));
+        StringBuilder path = new StringBuilder("/search/faceted?text={text}&from={from}&size={size}");
+        // Фильтры передаются на сервер, только если заданы
+        if (available != null) {
+            parameters.put("available", available);
+            path.append("&available={available}");
+        }
+        if (hasRequest != null) {
+            parameters.put("hasRequest", hasRequest);
+            path.append("&hasRequest={hasRequest}");
+        }
+        if (ownerId != null) {
+            parameters.put("ownerId", ownerId);
+            path.append("&ownerId={ownerId}");
+        }
+        return get(path.toString(), userId, parameters);
+    }
+
+    public ResponseEntity<Object> getItemNameSuggestions(Long userId, String prefix, Integer size) {
+        Map<String, Object> parameters = Map.of(
+                "prefix", prefix,
+                "size", size
+        );
+        return get("/suggest?prefix={prefix}&size={size}", userId, parameters);
+    }
+
+    public ResponseEntity<Object> getSimilarItems(Long userId, Long itemId, Integer size) {
+        Map<String, Object> parameters = Map.of(
+                "size", size
+        );
+        return get("/" + itemId + "/similar?size={size}", userId, parameters);
+    }
+
+    public ResponseEntity<Object> getItemAvailability(Long userId, Long itemId, LocalDateTime from, LocalDateTime to) {
+        Map<String, Object> parameters = Map.of(
+                "from", from,
+                "to", to
+        );
+        return get("/" + itemId + "/availability?from={from}&to={to}", userId, parameters);
     }
 
     public void deleteItem(Long userId, Long itemId) {
@@ -3,15 +3,20 @@ package ru.practicum.shareit.item;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.item.dto.CommentRequestDto;
 import ru.practicum.shareit.item.dto.ItemInDto;
 import ru.practicum.shareit.request.dto.UpdateItemRequest;
 
+import java.time.LocalDateTime;
+
 @RestController
 @RequestMapping(path = "/items")
 @RequiredArgsConstructor
@@ -34,8 +39,10 @@ public class ItemController {
     }
 
     @GetMapping
-    public ResponseEntity<Object> getItemsByUserId(@Positive @RequestHeader("X-Sharer-User-Id") Long userId) {
-        return itemClient.getItemsByUserId(userId);
+    public ResponseEntity<Object> getItemsByUserId(@Positive @RequestHeader("X-Sharer-User-Id") Long userId,
+                                                   @PositiveOrZero @RequestParam(required = false) Long after,
+                                                   @Positive @RequestParam(defaultValue = "10") Integer limit) {
+        return itemClient.getItemsByUserId(userId, after, limit);
     }
 
     @GetMapping("/{itemId}")
@@ -46,8 +53,57 @@ public class ItemController {
 
     @GetMapping("/search")
     public ResponseEntity<Object> getItemByText(@Positive @RequestHeader("X-Sharer-User-Id") Long userId,
-                                                @NotBlank @RequestParam String text) {
-        return itemClient.getItemByText(userId, text);
+                                                @NotBlank @RequestParam String text,
+                                                @RequestParam(defaultValue = "false") Boolean ranked,
+                                                @RequestParam(defaultValue = "false") Boolean fuzzy,
+                                                @RequestParam(required = false)
+                                                @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+                                                @RequestParam(required = false)
+                                                @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+                                                @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
+                                                @Positive @RequestParam(defaultValue = "10") Integer size) {
+        if ((start == null) != (end == null) || start != null && !start.isBefore(end)) {
+            throw new BadRequestException("Начало периода должно быть задано вместе с концом и быть раньше него");
+        }
+        return itemClient.getItemByText(userId, text, ranked, fuzzy, start, end, from, size);
+    }
+
+    @GetMapping("/search/faceted")
+    public ResponseEntity<Object> getItemsByTextFaceted(@Positive @RequestHeader("X-Sharer-User-Id") Long userId,
+                                                        @NotBlank @RequestParam String text,
+                                                        @RequestParam(required = false) Boolean available,
+                                                        @RequestParam(required = false) Boolean hasRequest,
+                                                        @Positive @RequestParam(required = false) Long ownerId,
+                                                        @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
+                                                        @Positive @RequestParam(defaultValue = "10") Integer size) {
+        return itemClient.getItemsByTextFaceted(userId, text, available, hasRequest, ownerId, from, size);
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<Object> getItemNameSuggestions(@Positive @RequestHeader("X-Sharer-User-Id") Long userId,
+                                                         @NotBlank @RequestParam String prefix,
+                                                         @Positive @RequestParam(defaultValue = "10") Integer size) {
+        return itemClient.getItemNameSuggestions(userId, prefix, size);
+    }
+
+    @GetMapping("/{itemId}/similar")
+    public ResponseEntity<Object> getSimilarItems(@Positive @RequestHeader("X-Sharer-User-Id") Long userId,
+                                                  @Positive @PathVariable Long itemId,
+                                                  @Positive @RequestParam(defaultValue = "10") Integer size) {
+        return itemClient.getSimilarItems(userId, itemId, size);
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public ResponseEntity<Object> getItemAvailability(@Positive @RequestHeader("X-Sharer-User-Id") Long userId,
+                                                      @Positive @PathVariable Long itemId,
+                                                      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                      LocalDateTime from,
+                                                      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                      LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new BadRequestException("Начало периода должно быть раньше его конца");
+        }
+        return itemClient.getItemAvailability(userId, itemId, from, to);
     }
 
     @DeleteMapping("/{itemId}")
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.ZonedDateTime;
+
+// Время, на которое вещь занята бронированием bookingId
+@AllArgsConstructor
+@Data
+public class BookedInterval {
+    private Long bookingId;
+    private ZonedDateTime start;
+    private ZonedDateTime end;
+}
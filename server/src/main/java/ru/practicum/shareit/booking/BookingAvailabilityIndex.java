@@ -0,0 +1,139 @@
+package ru.practicum.shareit.booking;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Расписание актуальных (не отклоненных и еще не закончившихся) бронирований каждой вещи в памяти.
+// Расписание вещи загружается из базы при первом обращении и дальше обновляется при создании и отклонении
+// бронирований, поэтому проверка свободного времени не обращается к базе.
+// Бронирования одной вещи в расписании не пересекаются, поэтому в дереве, упорядоченном по началу, концы
+// тоже упорядочены и пересечение с отрезком определяется по одному ближайшему бронированию за O(log n).
+// Количество расписаний в памяти ограничено, вытесненное расписание загрузится заново.
+// Расписание видит только изменения, сделанные этим экземпляром сервера. Если экземпляров несколько,
+// пропущенные пересечения на Postgres отсекает ограничение bookings_no_overlap, а отклонения и истечения
+// бронирований на других экземплярах становятся видны после перезагрузки расписания через expire-after-write
+@Component
+public class BookingAvailabilityIndex {
+    private final BookingRepository bookingRepository;
+    private final Cache<Long, ItemSchedule> schedules;
+
+    @Autowired
+    public BookingAvailabilityIndex(BookingRepository bookingRepository,
+                                    @Value("${shareit.booking.availability.maximum-items:100000}") long maximumItems,
+                                    @Value("${shareit.booking.availability.expire-after-write:5m}")
+                                    Duration expireAfterWrite) {
+        this(bookingRepository, maximumItems, expireAfterWrite, Ticker.systemTicker());
+    }
+
+    BookingAvailabilityIndex(BookingRepository bookingRepository, long maximumItems, Duration expireAfterWrite,
+                             Ticker ticker) {
+        this.bookingRepository = bookingRepository;
+        // Время отсчитывается от загрузки расписания: изменения в памяти не продлевают его жизнь
+        this.schedules = Caffeine.newBuilder()
+                .maximumSize(maximumItems)
+                .expireAfterWrite(expireAfterWrite)
+                .ticker(ticker)
+                .build();
+    }
+
+    // Свободна ли вещь на всем отрезке [start, end], концы отрезков включаются
+    public boolean isFree(Long itemId, ZonedDateTime start, ZonedDateTime end) {
+        return schedule(itemId).isFree(start, end);
+    }
+
+    // Бронирования вещи, пересекающиеся с отрезком [from, to], в порядке начала
+    public List<BookedInterval> findBooked(Long itemId, ZonedDateTime from, ZonedDateTime to) {
+        return schedule(itemId).findBooked(from, to);
+    }
+
+    public void add(Booking booking) {
+        if (booking.getState() != BookingState.REJECTED) {
+            schedule(booking.getItem().getId())
+                    .add(new BookedInterval(booking.getId(), booking.getStart(), booking.getEnd()));
+        }
+    }
+
+    public void remove(Booking booking) {
+        remove(booking.getItem().getId(), booking.getId());
+    }
+
+    public void remove(Long itemId, Long bookingId) {
+        ItemSchedule schedule = schedules.getIfPresent(itemId);
+        // Если расписание не загружено, при загрузке в нем и так не будет этого бронирования
+        if (schedule != null) {
+            schedule.remove(bookingId);
+        }
+    }
+
+    private ItemSchedule schedule(Long itemId) {
+        return schedules.get(itemId, id -> new ItemSchedule(bookingRepository.findBookedIntervals(id,
+                BookingState.REJECTED, ZonedDateTime.now(ZoneOffset.UTC))));
+    }
+
+    private static class ItemSchedule {
+        // Начало -> бронирование. Ключ - Instant, так как даты из базы и из запроса могут быть в разных зонах
+        private final NavigableMap<Instant, BookedInterval> intervals = new TreeMap<>();
+        private final Map<Long, Instant> startByBookingId = new HashMap<>();
+
+        ItemSchedule(List<BookedInterval> booked) {
+            booked.forEach(this::add);
+        }
+
+        synchronized boolean isFree(ZonedDateTime start, ZonedDateTime end) {
+            removeFinished();
+            // Из бронирований, начавшихся не позже end, дальше всех заканчивается последнее
+            Map.Entry<Instant, BookedInterval> latest = intervals.floorEntry(end.toInstant());
+            return latest == null || latest.getValue().getEnd().isBefore(start);
+        }
+
+        synchronized List<BookedInterval> findBooked(ZonedDateTime from, ZonedDateTime to) {
+            removeFinished();
+            // Начавшееся раньше from бронирование может еще продолжаться
+            Instant first = intervals.floorKey(from.toInstant());
+            List<BookedInterval> booked = new ArrayList<>();
+            for (BookedInterval interval : intervals.subMap(first == null ? from.toInstant() : first, true,
+                    to.toInstant(), true).values()) {
+                if (!interval.getEnd().isBefore(from)) {
+                    booked.add(interval);
+                }
+            }
+            return booked;
+        }
+
+        synchronized void add(BookedInterval interval) {
+            Instant start = interval.getStart().toInstant();
+            intervals.put(start, interval);
+            startByBookingId.put(interval.getBookingId(), start);
+        }
+
+        synchronized void remove(Long bookingId) {
+            Instant start = startByBookingId.remove(bookingId);
+            if (start != null) {
+                intervals.remove(start);
+            }
+        }
+
+        // Закончившиеся бронирования больше не влияют на свободное время
+        private void removeFinished() {
+            ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+            while (!intervals.isEmpty() && intervals.firstEntry().getValue().getEnd().isBefore(now)) {
+                startByBookingId.remove(intervals.pollFirstEntry().getValue().getBookingId());
+            }
+        }
+    }
+}
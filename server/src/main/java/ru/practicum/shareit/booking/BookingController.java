@@ -2,11 +2,16 @@ package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping(path = "/bookings")
@@ -30,6 +35,18 @@ public class BookingController {
         return BookingMapper.mapToBookingResponseDto(booking);
     }
 
+    @PatchMapping("/batch")
+    public List<BookingResponseDto> updateBookingStates(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                        @RequestBody List<BookingDecisionDto> decisions) {
+        // Порядок решений сохраняется, повторное решение по тому же бронированию заменяет предыдущее
+        Map<Long, Boolean> decisionsById = decisions.stream()
+                .collect(Collectors.toMap(BookingDecisionDto::getBookingId, BookingDecisionDto::getApproved,
+                        (first, second) -> second, LinkedHashMap::new));
+        return bookingService.updateBookingStates(userId, decisionsById).stream()
+                .map(BookingMapper::mapToBookingResponseDto)
+                .toList();
+    }
+
     @GetMapping("/{bookingId}")
     public BookingResponseDto getBookingById(@RequestHeader("X-Sharer-User-Id") Long userId,
                                              @PathVariable Long bookingId) {
@@ -39,8 +56,10 @@ public class BookingController {
 
     @GetMapping()
     public List<BookingResponseDto> getAllBookingsByUser(@RequestHeader("X-Sharer-User-Id") long userId,
-                                                         @RequestParam(defaultValue = "ALL") BookingState state) {
-        return bookingService.getAllBookingsByUser(userId, state)
+                                                         @RequestParam(defaultValue = "ALL") BookingState state,
+                                                         @RequestParam(defaultValue = "0") Integer from,
+                                                         @RequestParam(defaultValue = "10") Integer size) {
+        return bookingService.getAllBookingsByUser(userId, state, from, size)
                 .stream()
                 .map(BookingMapper::mapToBookingResponseDto)
                 .toList();
@@ -48,10 +67,22 @@ public class BookingController {
 
     @GetMapping("/owner")
     public List<BookingResponseDto> getAllBookingsByOwner(@RequestHeader("X-Sharer-User-Id") long userId,
-                                                          @RequestParam(defaultValue = "ALL") BookingState state) {
-        return bookingService.getAllBookingsByOwner(userId, state)
+                                                          @RequestParam(defaultValue = "ALL") BookingState state,
+                                                          @RequestParam(defaultValue = "0") Integer from,
+                                                          @RequestParam(defaultValue = "10") Integer size) {
+        return bookingService.getAllBookingsByOwner(userId, state, from, size)
                 .stream()
                 .map(BookingMapper::mapToBookingResponseDto)
                 .toList();
     }
+
+    @GetMapping("/summary")
+    public BookingSummaryDto getBookingSummaryByUser(@RequestHeader("X-Sharer-User-Id") long userId) {
+        return BookingMapper.mapToBookingSummaryDto(bookingService.getBookingSummaryByUser(userId));
+    }
+
+    @GetMapping("/owner/summary")
+    public BookingSummaryDto getBookingSummaryByOwner(@RequestHeader("X-Sharer-User-Id") long userId) {
+        return BookingMapper.mapToBookingSummaryDto(bookingService.getBookingSummaryByOwner(userId));
+    }
 }
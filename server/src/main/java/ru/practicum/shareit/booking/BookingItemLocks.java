@@ -0,0 +1,42 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Блокировки вещей на время бронирования, разделенные на полосы.
+// Вещь попадает в полосу по своему id: бронирования одной вещи выполняются по очереди,
+// а бронирования вещей из разных полос - параллельно. Количество блокировок не зависит от количества вещей
+@Component
+public class BookingItemLocks {
+    private final Lock[] stripes;
+
+    public BookingItemLocks(@Value("${shareit.booking.lock-stripes:64}") int stripeCount) {
+        // Количество полос округляется вверх до степени двойки, чтобы номер полосы вычислялся маской
+        int size = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        stripes = new Lock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    // Выполняет action, пока удерживается блокировка полосы вещи itemId
+    public <T> T withItemLock(Long itemId, Supplier<T> action) {
+        Lock lock = stripes[stripe(itemId)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int stripe(Long itemId) {
+        // Старшие биты подмешиваются к младшим, как в HashMap, чтобы полосу определяли все биты id
+        int hash = itemId.hashCode();
+        return (hash ^ (hash >>> 16)) & (stripes.length - 1);
+    }
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.data.domain.Pageable;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+public interface BookingQueryRepository {
+    // Страница бронирований пользователя в роли role, отобранных по state относительно момента now,
+    // в порядке убывания начала бронирования
+    List<Booking> findBookings(BookingRole role, Long userId, BookingState state, ZonedDateTime now, Pageable pageable);
+
+    // Количество бронирований пользователя в роли role в каждом состоянии относительно момента now
+    BookingStateCounts countBookingStates(BookingRole role, Long userId, ZonedDateTime now);
+}
@@ -0,0 +1,114 @@
+package ru.practicum.shareit.booking;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Один запрос для всех списков бронирований: роль и состояние меняют только условия WHERE.
+// Вещь, ее владелец и запрос, а также автор бронирования загружаются fetch join в том же SQL-запросе,
+// поэтому страница бронирований не порождает отдельных запросов для связанных сущностей
+@RequiredArgsConstructor
+public class BookingQueryRepositoryImpl implements BookingQueryRepository {
+    private final EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Booking> findBookings(BookingRole role, Long userId, BookingState state, ZonedDateTime now,
+                                      Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Booking> query = cb.createQuery(Booking.class);
+        Root<Booking> booking = query.from(Booking.class);
+        // Fetch в Hibernate является и соединением, через него же строятся условия на вещь,
+        // чтобы не появилось второго соединения с items
+        Join<Booking, Item> item = (Join<Booking, Item>) booking.<Booking, Item>fetch("item");
+        item.fetch("owner");
+        item.fetch("request", JoinType.LEFT).fetch("requestor", JoinType.LEFT);
+        booking.fetch("booker");
+
+        Predicate rolePredicate = switch (role) {
+            case BOOKER -> cb.equal(booking.get("booker").get("id"), userId);
+            case OWNER -> cb.equal(item.get("owner").get("id"), userId);
+        };
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(rolePredicate);
+        switch (state) {
+            case CURRENT -> {
+                // id текущих бронирований выбираются отдельным подзапросом: ему хватает индексов по окончанию
+                // bookings_booker_id_end_date_idx и bookings_item_id_end_date_idx без чтения строк таблицы,
+                // иначе для запроса со всеми колонками база выбирает индекс по началу и читает все прошлые бронирования
+                Subquery<Long> current = query.subquery(Long.class);
+                Root<Booking> currentBooking = current.from(Booking.class);
+                Predicate currentRolePredicate = switch (role) {
+                    case BOOKER -> cb.equal(currentBooking.get("booker").get("id"), userId);
+                    case OWNER -> cb.equal(currentBooking.get("item").get("owner").get("id"), userId);
+                };
+                current.select(currentBooking.get("id"))
+                        .where(currentRolePredicate,
+                                cb.lessThan(currentBooking.get("start"), now),
+                                cb.greaterThan(currentBooking.get("end"), now));
+                predicates.add(booking.get("id").in(current));
+            }
+            case FUTURE -> predicates.add(cb.greaterThan(booking.get("start"), now));
+            case PAST -> predicates.add(cb.lessThan(booking.get("end"), now));
+            case APPROVED, WAITING, REJECTED -> predicates.add(cb.equal(booking.get("state"), state));
+            case ALL -> {
+            }
+        }
+        // Бронирования с одинаковым началом упорядочиваются по id, чтобы границы страниц не зависели от плана запроса
+        query.select(booking)
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(cb.desc(booking.get("start")), cb.desc(booking.get("id")));
+
+        TypedQuery<Booking> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        return typedQuery.getResultList();
+    }
+
+    @Override
+    public BookingStateCounts countBookingStates(BookingRole role, Long userId, ZonedDateTime now) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookingStateCounts> query = cb.createQuery(BookingStateCounts.class);
+        Root<Booking> booking = query.from(Booking.class);
+        Path<ZonedDateTime> start = booking.get("start");
+        Path<ZonedDateTime> end = booking.get("end");
+        Path<BookingState> state = booking.get("state");
+
+        Predicate rolePredicate = switch (role) {
+            case BOOKER -> cb.equal(booking.get("booker").get("id"), userId);
+            case OWNER -> cb.equal(booking.get("item").get("owner").get("id"), userId);
+        };
+        // Каждое состояние - COUNT по своему условию, все счетчики считаются за один проход по бронированиям
+        query.select(cb.construct(BookingStateCounts.class,
+                countWhere(cb, cb.equal(state, BookingState.WAITING)),
+                countWhere(cb, cb.equal(state, BookingState.APPROVED)),
+                countWhere(cb, cb.equal(state, BookingState.REJECTED)),
+                countWhere(cb, cb.lessThan(end, now)),
+                countWhere(cb, cb.and(cb.lessThan(start, now), cb.greaterThan(end, now))),
+                countWhere(cb, cb.greaterThan(start, now))
+        )).where(rolePredicate);
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static Expression<Long> countWhere(CriteriaBuilder cb, Predicate predicate) {
+        // CASE без ELSE дает NULL для остальных строк, а COUNT не учитывает NULL
+        return cb.count(cb.<Integer>selectCase().when(predicate, 1));
+    }
+}
@@ -1,43 +1,63 @@
 package ru.practicum.shareit.booking;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
 
-public interface BookingRepository extends JpaRepository<Booking, Long> {
-    // Если state = ALL
-    List<Booking> findAllByBookerIdOrderByStartDesc(Long bookerId);
-
-    // Если state = APPROVED, WAITING, REJECTED
-    List<Booking> findAllByBookerIdAndStateOrderByStartDesc(Long bookerId, BookingState state);
-
-    // Если state = PAST
-    List<Booking> findAllByBookerIdAndEndBeforeOrderByStartDesc(Long userId, ZonedDateTime endBefore);
-
-    // Если state = CURRENT
-    List<Booking> findAllByBookerIdAndStartBeforeAndEndAfterOrderByStartDesc(Long userId, ZonedDateTime startBefore,
-                                                                             ZonedDateTime endAfter);
-
-    // Если state = FUTURE
-    List<Booking> findAllByBookerIdAndStartAfterOrderByStartDesc(Long userId, ZonedDateTime startAfter);
-
-    // Если state = ALL
-    List<Booking> findAllByItemOwnerIdOrderByStartDesc(Long ownerId);
-
-    // Если state = APPROVED, WAITING, REJECTED
-    List<Booking> findAllByItemOwnerIdAndStateOrderByStartDesc(Long ownerId, BookingState state);
-
-    // Если state = PAST
-    List<Booking> findAllByItemOwnerIdAndEndBeforeOrderByStartDesc(Long userId, ZonedDateTime endBefore);
-
-    // Если state = CURRENT
-    List<Booking> findAllByItemOwnerIdAndStartBeforeAndEndAfterOrderByStartDesc(Long userId, ZonedDateTime startBefore,
-                                                                                ZonedDateTime endAfter);
-
-    // Если state = FUTURE
-    List<Booking> findAllByItemOwnerIdAndStartAfterOrderByStartDesc(Long userId, ZonedDateTime startAfter);
-
-    // Вспомогательный для других методов
-    List<Booking> findAllByItemIdOrderByStartDesc(Long itemId);
+public interface BookingRepository extends JpaRepository<Booking, Long>, BookingQueryRepository {
+    // Бронирования вместе с вещами и их владельцами, чтобы проверить права на пакет бронирований одним запросом
+    @EntityGraph(attributePaths = {"item", "item.owner", "item.request", "item.request.requestor", "booker"})
+    List<Booking> findAllByIdIn(Collection<Long> ids);
+
+    // Незакончившиеся бронирования вещи, кроме бронирований в состоянии excludedState, для расписания вещи.
+    // Загружаются только время и id, закончившиеся бронирования отсекает индекс bookings_item_id_end_date_idx
+    @Query("SELECT new ru.practicum.shareit.booking.BookedInterval(b.id, b.start, b.end) FROM Booking b " +
+            "WHERE b.item.id = :itemId AND b.state <> :excludedState AND b.end > :now ORDER BY b.start")
+    List<BookedInterval> findBookedIntervals(@Param("itemId") Long itemId,
+                                             @Param("excludedState") BookingState excludedState,
+                                             @Param("now") ZonedDateTime now);
+
+    // Пачка бронирований в статусе state, время начала которых прошло
+    @Query("SELECT new ru.practicum.shareit.booking.ExpiredBooking(b.id, b.item.id) FROM Booking b " +
+            "WHERE b.state = :state AND b.start < :now ORDER BY b.start")
+    List<ExpiredBooking> findExpiredBookings(@Param("state") BookingState state,
+                                             @Param("now") ZonedDateTime now,
+                                             Limit limit);
+
+    // Меняет статус бронирований одним UPDATE, бронирования, статус которых уже не oldState, не меняются.
+    // Загруженные до UPDATE бронирования отсоединяются, чтобы их устаревший статус не записался обратно
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.state = :newState WHERE b.id IN :ids AND b.state = :oldState")
+    int updateStateByIdIn(@Param("ids") Collection<Long> ids,
+                          @Param("oldState") BookingState oldState,
+                          @Param("newState") BookingState newState);
+
+    // Бронирования из ids, которые сейчас в статусе state
+    @Query("SELECT b.id FROM Booking b WHERE b.id IN :ids AND b.state = :state")
+    List<Long> findIdsByIdInAndState(@Param("ids") Collection<Long> ids, @Param("state") BookingState state);
+
+    // Вещи из itemIds, у которых есть бронирование, пересекающееся с периодом [start, end], одним запросом
+    @Query("SELECT DISTINCT b.item.id FROM Booking b WHERE b.item.id IN :itemIds AND b.state <> :excludedState " +
+            "AND b.start <= :end AND b.end >= :start")
+    List<Long> findBookedItemIds(@Param("itemIds") Collection<Long> itemIds,
+                                 @Param("excludedState") BookingState excludedState,
+                                 @Param("start") ZonedDateTime start,
+                                 @Param("end") ZonedDateTime end);
+
+    // Вещи, у неотклоненных бронирований которых начало или окончание попало в период (from, to].
+    // У этих вещей за период могли измениться даты последнего и следующего бронирований
+    @Query("SELECT DISTINCT b.item.id FROM Booking b WHERE b.state <> :excludedState " +
+            "AND (b.start > :from AND b.start <= :to OR b.end > :from AND b.end <= :to)")
+    List<Long> findItemIdsWithBookingDatesBetween(@Param("excludedState") BookingState excludedState,
+                                                  @Param("from") ZonedDateTime from,
+                                                  @Param("to") ZonedDateTime to);
 }
@@ -1,15 +1,22 @@
 package ru.practicum.shareit.booking;
 
 import java.util.List;
+import java.util.Map;
 
 public interface BookingService {
     Booking createBooking(Long userId, Long itemId, Booking booking);
 
     Booking updateBookingState(Long userId, Long bookingId, Boolean approved);
 
+    List<Booking> updateBookingStates(Long userId, Map<Long, Boolean> decisions);
+
     Booking getBookingById(Long userId, Long bookingId);
 
-    List<Booking> getAllBookingsByUser(Long userId, BookingState state);
+    List<Booking> getAllBookingsByUser(Long userId, BookingState state, int from, int size);
+
+    List<Booking> getAllBookingsByOwner(Long userId, BookingState state, int from, int size);
+
+    BookingStateCounts getBookingSummaryByUser(Long userId);
 
-    List<Booking> getAllBookingsByOwner(Long userId, BookingState state);
+    BookingStateCounts getBookingSummaryByOwner(Long userId);
 }
@@ -1,7 +1,13 @@
 package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.OffsetPageRequest;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.DataAccessException;
 import ru.practicum.shareit.exception.NotFoundException;
@@ -12,14 +18,26 @@ import ru.practicum.shareit.user.model.User;
 
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class BookingServiceImpl implements BookingService {
+    private static final String OVERLAP_MESSAGE = "Новое бронирование пересекается с уже существующими бронированиями";
+    // Ограничение из schema-postgresql.sql, запрещающее пересечение неотклоненных бронирований одной вещи
+    private static final String NO_OVERLAP_CONSTRAINT = "bookings_no_overlap";
+    private static final String NOT_WAITING_MESSAGE = "Отклонить или подтвердить можно бронирования только в статусе WAITING";
+
     private final BookingRepository bookingRepository;
     private final UserRepository userRepository;
     private final ItemRepository itemRepository;
+    private final BookingAvailabilityIndex bookingAvailabilityIndex;
+    private final BookingItemLocks bookingItemLocks;
+    private final ItemBookingDatesUpdater itemBookingDatesUpdater;
 
     @Override
     public Booking createBooking(Long userId, Long itemId, Booking booking) {
@@ -35,17 +53,30 @@ public class BookingServiceImpl implements BookingService {
             throw new BadRequestException("Нельзя забронировать вещь, которая недоступна");
         }
 
-        List<Booking> bookings = bookingRepository.findAllByItemIdOrderByStartDesc(item.getId());
-        if (bookings.stream()
-                // Выбираем только те бронирования, которые актуальны на настоящий момент
-                .filter(b -> b.getEnd().isAfter(ZonedDateTime.now(ZoneOffset.UTC)))
-                // Проверяем пересекается ли новое бронирование с уже существующими
-                .anyMatch(b -> !(booking.getStart().isAfter(b.getEnd()) ||
-                        booking.getEnd().isBefore(b.getStart())))) {
-            throw new BadRequestException("Новое бронирование пересекается с уже существующими бронированиями");
-        }
-        booking.setState(BookingState.WAITING);
-        return bookingRepository.save(booking);
+        // Проверка и сохранение выполняются под блокировкой вещи, иначе два параллельных запроса
+        // могут оба пройти проверку и забронировать одно и то же время
+        return bookingItemLocks.withItemLock(item.getId(), () -> {
+            // Проверяем по расписанию вещи, пересекается ли новое бронирование с актуальными неотклоненными бронированиями
+            if (!bookingAvailabilityIndex.isFree(item.getId(), booking.getStart(), booking.getEnd())) {
+                throw new BadRequestException(OVERLAP_MESSAGE);
+            }
+            booking.setState(BookingState.WAITING);
+            try {
+                Booking savedBooking = bookingRepository.save(booking);
+                bookingAvailabilityIndex.add(savedBooking);
+                // Новое бронирование может стать следующим бронированием вещи
+                itemBookingDatesUpdater.update(List.of(item.getId()));
+                return savedBooking;
+            } catch (DataIntegrityViolationException e) {
+                // Блокировка действует в пределах одного экземпляра приложения. На Postgres пересечение,
+                // созданное другим экземпляром, отклоняет ограничение bookings_no_overlap из schema-postgresql.sql.
+                // Остальные нарушения целостности (внешние ключи, NOT NULL) не являются пересечением
+                if (violatesNoOverlap(e)) {
+                    throw new BadRequestException(OVERLAP_MESSAGE);
+                }
+                throw e;
+            }
+        });
     }
 
     @Override
@@ -62,14 +93,85 @@ public class BookingServiceImpl implements BookingService {
             throw new DataAccessException("Менять статус бронирования может только владелец бронируемой вещи");
         }
         if (!booking.getState().equals(BookingState.WAITING)) {
-            throw new BadRequestException("Отклонить или подтвердить можно бронирования только в статусе WAITING");
+            throw new BadRequestException(NOT_WAITING_MESSAGE);
+        }
+        BookingState newState = approved ? BookingState.APPROVED : BookingState.REJECTED;
+        // Статус меняется условным UPDATE: если после проверки выше бронирование отклонила задача
+        // StaleBookingExpiryJob, подтверждение не перезапишет отклонение
+        if (bookingRepository.updateStateByIdIn(List.of(bookingId), BookingState.WAITING, newState) == 0) {
+            throw new BadRequestException(NOT_WAITING_MESSAGE);
         }
-        if (approved) {
-            booking.setState(BookingState.APPROVED);
-        } else {
-            booking.setState(BookingState.REJECTED);
+        booking.setState(newState);
+        if (!approved) {
+            // Отклоненное бронирование освобождает время вещи
+            bookingAvailabilityIndex.remove(booking);
+            // и больше не учитывается в датах последнего и следующего бронирований.
+            // Подтверждение даты не меняет: ожидающие подтверждения бронирования в них уже учтены
+            itemBookingDatesUpdater.update(List.of(booking.getItem().getId()));
         }
-        return bookingRepository.save(booking);
+        return booking;
+    }
+
+    // Все решения применяются в одной транзакции: при ошибке в любом бронировании не меняется ни одно.
+    // Статусы меняются двумя условными UPDATE - для подтверждаемых и для отклоняемых бронирований
+    @Override
+    @Transactional
+    public List<Booking> updateBookingStates(Long userId, Map<Long, Boolean> decisions) {
+        // Проверка на существование пользователя
+        // Тесты в Postman хотят чтобы код ответа в этом случае был 403
+        userRepository.findById(userId)
+                .orElseThrow(() -> new DataAccessException("Пользователь с таким id не найден"));
+        // Бронирования, их вещи и владельцы загружаются одним запросом
+        Map<Long, Booking> bookingsById = bookingRepository.findAllByIdIn(decisions.keySet()).stream()
+                .collect(Collectors.toMap(Booking::getId, booking -> booking));
+        List<Booking> bookings = new ArrayList<>();
+        List<Long> approvedIds = new ArrayList<>();
+        List<Long> rejectedIds = new ArrayList<>();
+        for (Long bookingId : decisions.keySet()) {
+            Booking booking = bookingsById.get(bookingId);
+            if (booking == null) {
+                throw new NotFoundException("Бронирование с id " + bookingId + " не найдено");
+            }
+            if (!userId.equals(booking.getItem().getOwner().getId())) {
+                throw new DataAccessException("Менять статус бронирования может только владелец бронируемой вещи");
+            }
+            if (!booking.getState().equals(BookingState.WAITING)) {
+                throw new BadRequestException(NOT_WAITING_MESSAGE);
+            }
+            if (decisions.get(bookingId)) {
+                approvedIds.add(bookingId);
+            } else {
+                rejectedIds.add(bookingId);
+            }
+            bookings.add(booking);
+        }
+        // Если часть бронирований успела отклонить задача StaleBookingExpiryJob, UPDATE их не изменит,
+        // и вся транзакция откатывается
+        int updated = 0;
+        if (!approvedIds.isEmpty()) {
+            updated += bookingRepository.updateStateByIdIn(approvedIds, BookingState.WAITING, BookingState.APPROVED);
+        }
+        if (!rejectedIds.isEmpty()) {
+            updated += bookingRepository.updateStateByIdIn(rejectedIds, BookingState.WAITING, BookingState.REJECTED);
+        }
+        if (updated < bookings.size()) {
+            throw new BadRequestException(NOT_WAITING_MESSAGE);
+        }
+        bookings.forEach(booking -> booking.setState(decisions.get(booking.getId())
+                ? BookingState.APPROVED
+                : BookingState.REJECTED));
+        // Отклоненные бронирования освобождают время вещей и меняют их даты бронирований
+        List<Booking> rejectedBookings = bookings.stream()
+                .filter(booking -> booking.getState() == BookingState.REJECTED)
+                .toList();
+        // Из расписания время освобождается только после фиксации: при откате бронирования остаются WAITING
+        afterCommit(() -> rejectedBookings.forEach(bookingAvailabilityIndex::remove));
+        // Даты бронирований вещей обновляются в той же транзакции, что и состояния бронирований
+        Set<Long> rejectedItemIds = rejectedBookings.stream()
+                .map(booking -> booking.getItem().getId())
+                .collect(Collectors.toSet());
+        itemBookingDatesUpdater.update(rejectedItemIds);
+        return bookings;
     }
 
     @Override
@@ -90,40 +192,63 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
-    public List<Booking> getAllBookingsByUser(Long userId, BookingState state) {
+    public List<Booking> getAllBookingsByUser(Long userId, BookingState state, int from, int size) {
+        // from - смещение, а не номер страницы
+        Pageable page = OffsetPageRequest.of(from, size);
         // Проверка существования пользователя
         userRepository.findById(userId)
                 .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
 
-        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
-        List<Booking> bookings = switch (state) {
-            case APPROVED, WAITING, REJECTED ->
-                    bookingRepository.findAllByBookerIdAndStateOrderByStartDesc(userId, state);
-            case PAST -> bookingRepository.findAllByBookerIdAndEndBeforeOrderByStartDesc(userId, now);
-            case CURRENT ->
-                    bookingRepository.findAllByBookerIdAndStartBeforeAndEndAfterOrderByStartDesc(userId, now, now);
-            case FUTURE -> bookingRepository.findAllByBookerIdAndStartAfterOrderByStartDesc(userId, now);
-            case ALL -> bookingRepository.findAllByBookerIdOrderByStartDesc(userId);
-        };
-        return bookings;
+        return bookingRepository.findBookings(BookingRole.BOOKER, userId, state, ZonedDateTime.now(ZoneOffset.UTC),
+                page);
     }
 
     @Override
-    public List<Booking> getAllBookingsByOwner(Long userId, BookingState state) {
+    public List<Booking> getAllBookingsByOwner(Long userId, BookingState state, int from, int size) {
+        // from - смещение, а не номер страницы
+        Pageable page = OffsetPageRequest.of(from, size);
         // Проверка существования пользователя
         userRepository.findById(userId)
                 .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
 
-        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
-        List<Booking> bookings = switch (state) {
-            case APPROVED, WAITING, REJECTED ->
-                    bookingRepository.findAllByItemOwnerIdAndStateOrderByStartDesc(userId, state);
-            case PAST -> bookingRepository.findAllByItemOwnerIdAndEndBeforeOrderByStartDesc(userId, now);
-            case CURRENT ->
-                    bookingRepository.findAllByItemOwnerIdAndStartBeforeAndEndAfterOrderByStartDesc(userId, now, now);
-            case FUTURE -> bookingRepository.findAllByItemOwnerIdAndStartAfterOrderByStartDesc(userId, now);
-            case ALL -> bookingRepository.findAllByItemOwnerIdOrderByStartDesc(userId);
-        };
-        return bookings;
+        return bookingRepository.findBookings(BookingRole.OWNER, userId, state, ZonedDateTime.now(ZoneOffset.UTC),
+                page);
+    }
+
+    @Override
+    public BookingStateCounts getBookingSummaryByUser(Long userId) {
+        // Проверка существования пользователя
+        userRepository.findById(userId)
+                .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+
+        return bookingRepository.countBookingStates(BookingRole.BOOKER, userId, ZonedDateTime.now(ZoneOffset.UTC));
+    }
+
+    @Override
+    public BookingStateCounts getBookingSummaryByOwner(Long userId) {
+        // Проверка существования пользователя
+        userRepository.findById(userId)
+                .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+
+        return bookingRepository.countBookingStates(BookingRole.OWNER, userId, ZonedDateTime.now(ZoneOffset.UTC));
+    }
+
+    // Вне транзакции действие выполняется сразу
+    private static boolean violatesNoOverlap(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase().contains(NO_OVERLAP_CONSTRAINT);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 }
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Количество бронирований пользователя в каждом из состояний, посчитанное одним агрегирующим запросом.
+// Бронирование учитывается и в своем статусе, и в одном из состояний по времени
+@AllArgsConstructor
+@Data
+public class BookingStateCounts {
+    private Long waiting;
+    private Long approved;
+    private Long rejected;
+    private Long past;
+    private Long current;
+    private Long future;
+}
@@ -0,0 +1,12 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Бронирование, которое не подтвердили до его начала, и его вещь
+@AllArgsConstructor
+@Data
+public class ExpiredBooking {
+    private Long bookingId;
+    private Long itemId;
+}
@@ -0,0 +1,36 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+// Сдвигает даты последнего и следующего бронирований вещей по мере хода времени.
+// Первый запуск пересчитывает все вещи, так как бронирования могли начаться или закончиться, пока сервер не работал.
+// Дальше пересчитываются только вещи, у бронирований которых с прошлого запуска наступило начало или окончание
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.item.booking-dates.refresh.enabled", havingValue = "true",
+        matchIfMissing = true)
+public class ItemBookingDatesRefreshJob {
+    private final ItemBookingDatesUpdater itemBookingDatesUpdater;
+
+    // Время предыдущего запуска, задача выполняется в одном потоке планировщика
+    private ZonedDateTime lastRun;
+
+    @Scheduled(fixedDelayString = "${shareit.item.booking-dates.refresh.interval:PT1M}")
+    public void refresh() {
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        if (lastRun == null) {
+            log.info("Даты бронирований пересчитаны для всех вещей: {}", itemBookingDatesUpdater.updateAll());
+        } else {
+            itemBookingDatesUpdater.updateChangedBetween(lastRun, now);
+        }
+        lastRun = now;
+    }
+}
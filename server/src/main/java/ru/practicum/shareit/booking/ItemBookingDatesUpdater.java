@@ -0,0 +1,62 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.ItemRepository;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+
+// Поддерживает в вещах даты последнего и следующего бронирований, чтобы списки вещей не читали бронирования.
+// Даты пересчитываются при создании и отклонении бронирований, а по мере хода времени - в ItemBookingDatesRefreshJob.
+// Даты показываются только владельцу в GET /items, который не кэшируется, поэтому кэши вещей не сбрасываются
+@Component
+public class ItemBookingDatesUpdater {
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    // Размер диапазона id вещей, пересчитываемого одним UPDATE при полном пересчете
+    private final int batchSize;
+
+    public ItemBookingDatesUpdater(ItemRepository itemRepository,
+                                   BookingRepository bookingRepository,
+                                   @Value("${shareit.item.booking-dates.refresh.batch-size:1000}") int batchSize) {
+        this.itemRepository = itemRepository;
+        this.bookingRepository = bookingRepository;
+        this.batchSize = batchSize;
+    }
+
+    public void update(Collection<Long> itemIds) {
+        update(itemIds, ZonedDateTime.now(ZoneOffset.UTC));
+    }
+
+    // Пересчитывает вещи, у бронирований которых за период (from, to] наступило начало или окончание
+    public int updateChangedBetween(ZonedDateTime from, ZonedDateTime to) {
+        List<Long> itemIds = bookingRepository.findItemIdsWithBookingDatesBetween(BookingState.REJECTED, from, to);
+        update(itemIds, to);
+        return itemIds.size();
+    }
+
+    // Пересчитывает все вещи диапазонами id по batchSize, каждый диапазон - отдельный UPDATE в своей транзакции
+    public int updateAll() {
+        Long maxId = itemRepository.findMaxId();
+        if (maxId == null) {
+            return 0;
+        }
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        int updated = 0;
+        for (long afterId = 0; afterId < maxId; afterId += batchSize) {
+            updated += itemRepository.updateBookingDatesByIdBetween(afterId, afterId + batchSize,
+                    BookingState.REJECTED, now);
+        }
+        return updated;
+    }
+
+    private void update(Collection<Long> itemIds, ZonedDateTime now) {
+        if (itemIds.isEmpty()) {
+            return;
+        }
+        itemRepository.updateBookingDates(itemIds, BookingState.REJECTED, now);
+    }
+}
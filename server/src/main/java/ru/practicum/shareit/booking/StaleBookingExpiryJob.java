@@ -0,0 +1,97 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+// Отклоняет бронирования, которые остались в статусе WAITING после своего начала.
+// Бронирования обрабатываются пачками по batchSize: id пачки выбираются по индексу bookings_state_start_date_idx,
+// затем пачка отклоняется одним UPDATE в своей транзакции, поэтому задача не держит долгих блокировок.
+// Прогресс доступен через actuator в метриках shareit.bookings.expired и shareit.bookings.expiry
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.booking.expiry.enabled", havingValue = "true", matchIfMissing = true)
+public class StaleBookingExpiryJob {
+    private final BookingRepository bookingRepository;
+    private final BookingAvailabilityIndex bookingAvailabilityIndex;
+    private final ItemBookingDatesUpdater itemBookingDatesUpdater;
+    private final int batchSize;
+    // Всего отклоненных бронирований
+    private final Counter expiredCounter;
+    // Длительность запусков
+    private final Timer runTimer;
+    // Количество бронирований, отклоненных последним запуском
+    private final AtomicLong lastRunExpired = new AtomicLong();
+
+    public StaleBookingExpiryJob(BookingRepository bookingRepository,
+                                 BookingAvailabilityIndex bookingAvailabilityIndex,
+                                 ItemBookingDatesUpdater itemBookingDatesUpdater,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${shareit.booking.expiry.batch-size:500}") int batchSize) {
+        this.bookingRepository = bookingRepository;
+        this.bookingAvailabilityIndex = bookingAvailabilityIndex;
+        this.itemBookingDatesUpdater = itemBookingDatesUpdater;
+        this.batchSize = batchSize;
+        this.expiredCounter = meterRegistry.counter("shareit.bookings.expired");
+        this.runTimer = meterRegistry.timer("shareit.bookings.expiry");
+        meterRegistry.gauge("shareit.bookings.expiry.last-run", lastRunExpired);
+    }
+
+    @Scheduled(initialDelayString = "${shareit.booking.expiry.interval:PT1M}",
+            fixedDelayString = "${shareit.booking.expiry.interval:PT1M}")
+    public void expireStaleBookings() {
+        runTimer.record(() -> {
+            ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+            long expired = 0;
+            List<ExpiredBooking> batch;
+            do {
+                batch = bookingRepository.findExpiredBookings(BookingState.WAITING, now, Limit.of(batchSize));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                List<Long> ids = batch.stream()
+                        .map(ExpiredBooking::getBookingId)
+                        .toList();
+                // Бронирование, подтвержденное после выборки пачки, условие на статус в UPDATE не изменит
+                int updated = bookingRepository.updateStateByIdIn(ids, BookingState.WAITING, BookingState.REJECTED);
+                // Если UPDATE пропустил часть пачки, из расписаний убираются только отклоненные бронирования,
+                // иначе подтвержденное бронирование перестало бы занимать время вещи
+                List<ExpiredBooking> rejected = batch;
+                if (updated < batch.size()) {
+                    Set<Long> rejectedIds = new HashSet<>(bookingRepository.findIdsByIdInAndState(ids,
+                            BookingState.REJECTED));
+                    rejected = batch.stream()
+                            .filter(booking -> rejectedIds.contains(booking.getBookingId()))
+                            .toList();
+                }
+                // Отклоненные бронирования освобождают время вещей
+                rejected.forEach(booking -> bookingAvailabilityIndex.remove(booking.getItemId(),
+                        booking.getBookingId()));
+                // и могли быть последними бронированиями вещей
+                itemBookingDatesUpdater.update(rejected.stream()
+                        .map(ExpiredBooking::getItemId)
+                        .collect(Collectors.toSet()));
+                expiredCounter.increment(updated);
+                expired += updated;
+            } while (batch.size() == batchSize);
+            lastRunExpired.set(expired);
+            if (expired > 0) {
+                log.info("Отклонено неподтвержденных бронирований, время начала которых прошло: {}", expired);
+            }
+        });
+    }
+}
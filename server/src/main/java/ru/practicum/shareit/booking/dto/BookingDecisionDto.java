@@ -0,0 +1,14 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Решение владельца по одному бронированию в пакетном подтверждении
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class BookingDecisionDto {
+    private Long bookingId;
+    private Boolean approved;
+}
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class BookingSummaryDto {
+    private Long waiting;
+    private Long approved;
+    private Long rejected;
+    private Long past;
+    private Long current;
+    private Long future;
+}
@@ -3,8 +3,10 @@ package ru.practicum.shareit.booking.mapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingStateCounts;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.user.mapper.UserMapper;
 
@@ -24,6 +26,17 @@ public class BookingMapper {
         );
     }
 
+    public static BookingSummaryDto mapToBookingSummaryDto(BookingStateCounts counts) {
+        return new BookingSummaryDto(
+                counts.getWaiting(),
+                counts.getApproved(),
+                counts.getRejected(),
+                counts.getPast(),
+                counts.getCurrent(),
+                counts.getFuture()
+        );
+    }
+
     public static Booking mapToBooking(Long userId, BookingRequestDto bookingRequestDto) {
         return new Booking(
                 null,
@@ -0,0 +1,45 @@
+package ru.practicum.shareit.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+// Кэши ограничены по размеру и времени жизни записей.
+// Статистика попаданий и промахов доступна через actuator в метрике cache.gets
+@EnableCaching
+@Configuration
+public class CacheConfig {
+    // Собранные ItemOutDto для GET /items/{itemId}
+    public static final String ITEMS = "items";
+    // Результаты /items/search по нормализованному тексту запроса и странице
+    public static final String ITEM_SEARCH = "itemSearch";
+
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> itemsCacheCustomizer(
+            @Value("${shareit.cache.items.maximum-size}") long maximumSize,
+            @Value("${shareit.cache.items.expire-after-write}") Duration expireAfterWrite) {
+        return cacheManager -> cacheManager.registerCustomCache(ITEMS, buildCache(maximumSize, expireAfterWrite));
+    }
+
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> itemSearchCacheCustomizer(
+            @Value("${shareit.cache.item-search.maximum-size}") long maximumSize,
+            @Value("${shareit.cache.item-search.expire-after-write}") Duration expireAfterWrite) {
+        return cacheManager -> cacheManager.registerCustomCache(ITEM_SEARCH, buildCache(maximumSize, expireAfterWrite));
+    }
+
+    private static Cache<Object, Object> buildCache(long maximumSize, Duration expireAfterWrite) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+}
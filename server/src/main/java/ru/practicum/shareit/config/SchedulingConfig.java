@@ -0,0 +1,10 @@
+package ru.practicum.shareit.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Фоновые задачи, например StaleBookingExpiryJob
+@EnableScheduling
+@Configuration
+public class SchedulingConfig {
+}
@@ -1,10 +1,15 @@
 package ru.practicum.shareit.item;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import ru.practicum.shareit.item.model.Comment;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
     List<Comment> findAllByItemId(Long itemId);
+
+    @EntityGraph(attributePaths = {"item", "item.owner", "item.request", "item.request.requestor", "author"})
+    List<Comment> findAllByItemIdIn(Collection<Long> itemIds);
 }
@@ -0,0 +1,62 @@
+package ru.practicum.shareit.item;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+// Отсортированные по возрастанию id вещей в массиве long: 8 байт на id вместо упакованного Long в HashSet.
+// Вещи обычно добавляются с растущими id, поэтому вставка чаще всего дописывает id в конец массива
+final class IdPosting {
+    private long[] ids = new long[2];
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    long get(int index) {
+        return ids[index];
+    }
+
+    boolean contains(long id) {
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+
+    void forEach(LongConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(ids[i]);
+        }
+    }
+
+    void add(long id) {
+        int index = size > 0 && ids[size - 1] < id ? size : Arrays.binarySearch(ids, 0, size, id);
+        if (index >= 0 && index < size) {
+            return;
+        }
+        if (index < 0) {
+            index = -index - 1;
+        }
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        System.arraycopy(ids, index, ids, index + 1, size - index);
+        ids[index] = id;
+        size++;
+    }
+
+    void remove(long id) {
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index < 0) {
+            return;
+        }
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        size--;
+        // Массив ужимается, когда заполнен меньше чем на четверть
+        if (ids.length > 2 && size < ids.length / 4) {
+            ids = Arrays.copyOf(ids, Math.max(2, ids.length / 2));
+        }
+    }
+}
@@ -1,15 +1,19 @@
 package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.item.dto.CommentRequestDto;
 import ru.practicum.shareit.item.dto.CommentResponseDto;
+import ru.practicum.shareit.item.dto.FreeSlotDto;
 import ru.practicum.shareit.item.dto.ItemInDto;
 import ru.practicum.shareit.item.dto.ItemOutDto;
+import ru.practicum.shareit.item.dto.ItemSearchResultDto;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -34,8 +38,10 @@ public class ItemController {
     }
 
     @GetMapping
-    public List<ItemOutDto> getItemsByUserId(@RequestHeader("X-Sharer-User-Id") Long userId) {
-        return itemService.getItemsByUserId(userId);
+    public List<ItemOutDto> getItemsByUserId(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                             @RequestParam(required = false) Long after,
+                                             @RequestParam(defaultValue = "10") Integer limit) {
+        return itemService.getItemsByUserId(userId, after, limit);
     }
 
     @GetMapping("/{itemId}")
@@ -46,12 +52,61 @@ public class ItemController {
 
     @GetMapping("/search")
     public List<ItemOutDto> getItemByText(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                          @RequestParam String text) {
-        return itemService.getItemsByText(text).stream()
+                                          @RequestParam String text,
+                                          @RequestParam(defaultValue = "false") Boolean ranked,
+                                          @RequestParam(defaultValue = "false") Boolean fuzzy,
+                                          @RequestParam(required = false)
+                                          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+                                          @RequestParam(required = false)
+                                          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+                                          @RequestParam(defaultValue = "0") Integer from,
+                                          @RequestParam(defaultValue = "10") Integer size) {
+        // С периодом ищутся только вещи, свободные весь период
+        List<Item> items = start == null && end == null
+                ? itemService.getItemsByText(text, ranked, fuzzy, from, size)
+                : itemService.getFreeItemsByText(text, ranked, fuzzy, start, end, from, size);
+        return items.stream()
                 .map(ItemMapper::mapToItemOutDto)
                 .toList();
     }
 
+    @GetMapping("/search/faceted")
+    public ItemSearchResultDto getItemsByTextFaceted(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                     @RequestParam String text,
+                                                     @RequestParam(required = false) Boolean available,
+                                                     @RequestParam(required = false) Boolean hasRequest,
+                                                     @RequestParam(required = false) Long ownerId,
+                                                     @RequestParam(defaultValue = "0") Integer from,
+                                                     @RequestParam(defaultValue = "10") Integer size) {
+        return itemService.getItemsByTextFaceted(text, new ItemSearchFilter(available, hasRequest, ownerId), from, size);
+    }
+
+    @GetMapping("/suggest")
+    public List<String> getItemNameSuggestions(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                               @RequestParam String prefix,
+                                               @RequestParam(defaultValue = "10") Integer size) {
+        return itemService.getItemNameSuggestions(prefix, size);
+    }
+
+    @GetMapping("/{itemId}/similar")
+    public List<ItemOutDto> getSimilarItems(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                            @PathVariable Long itemId,
+                                            @RequestParam(defaultValue = "10") Integer size) {
+        return itemService.getSimilarItems(itemId, size).stream()
+                .map(ItemMapper::mapToItemOutDto)
+                .toList();
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public List<FreeSlotDto> getItemAvailability(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                 @PathVariable Long itemId,
+                                                 @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                 LocalDateTime from,
+                                                 @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                 LocalDateTime to) {
+        return itemService.getItemAvailability(itemId, from, to);
+    }
+
     @DeleteMapping("/{itemId}")
     public void deleteItem(@RequestHeader("X-Sharer-User-Id") Long userId,
                            @PathVariable Long itemId) {
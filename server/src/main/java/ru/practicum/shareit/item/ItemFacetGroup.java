@@ -0,0 +1,15 @@
+package ru.practicum.shareit.item;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Количество найденных вещей одного владельца с одним значением доступности
+// и сколько из них созданы по запросу. Из таких групп считаются все фасеты поиска
+@AllArgsConstructor
+@Data
+public class ItemFacetGroup {
+    private Boolean available;
+    private Long ownerId;
+    private Long total;
+    private Long withRequest;
+}
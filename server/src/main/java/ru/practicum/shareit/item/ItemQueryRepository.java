@@ -0,0 +1,33 @@
+package ru.practicum.shareit.item;
+
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.booking.BookingState;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+// Поиск вещей по тексту в режиме shareit.search.mode=database.
+// patterns - шаблоны из ItemTextAnalyzer.toLikePatterns, вещь подходит, если название или описание
+// подходит под каждый шаблон
+public interface ItemQueryRepository {
+    // Страница доступных вещей в порядке возрастания id
+    List<Item> findAvailableItemsByText(List<String> patterns, Pageable pageable);
+
+    // Ранжированный вариант: сначала вещи, в названии которых есть все основы запроса
+    List<Item> findAvailableItemsByTextRanked(List<String> patterns, Pageable pageable);
+
+    // Доступные вещи, свободные весь период [start, end]
+    List<Item> findAvailableItemsByTextFreeBetween(List<String> patterns, BookingState excludedState,
+                                                   ZonedDateTime start, ZonedDateTime end, Pageable pageable);
+
+    List<Item> findAvailableItemsByTextFreeBetweenRanked(List<String> patterns, BookingState excludedState,
+                                                         ZonedDateTime start, ZonedDateTime end, Pageable pageable);
+
+    // Поиск с необязательными фильтрами, фильтр со значением null не применяется
+    List<Item> findItemsByTextAndFilter(List<String> patterns, Boolean available, Boolean hasRequest, Long ownerId,
+                                        Pageable pageable);
+
+    // Группы найденных вещей для подсчета всех фасетов одним запросом
+    List<ItemFacetGroup> countFacetGroupsByText(List<String> patterns);
+}
@@ -0,0 +1,159 @@
+package ru.practicum.shareit.item;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingState;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.ItemRequest;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+// Число условий LIKE зависит от количества слов запроса, поэтому запросы строятся через Criteria API.
+// Текст вещи приводится к виду ItemTextAnalyzer.normalize: нижний регистр и ё заменена на е.
+// На Postgres по тем же выражениям построены триграммные индексы из schema-postgresql.sql
+@RequiredArgsConstructor
+public class ItemQueryRepositoryImpl implements ItemQueryRepository {
+    private final EntityManager entityManager;
+
+    @Override
+    public List<Item> findAvailableItemsByText(List<String> patterns, Pageable pageable) {
+        return findItems(patterns, false, pageable, (query, item) -> List.of(availableOnly(item)));
+    }
+
+    @Override
+    public List<Item> findAvailableItemsByTextRanked(List<String> patterns, Pageable pageable) {
+        return findItems(patterns, true, pageable, (query, item) -> List.of(availableOnly(item)));
+    }
+
+    @Override
+    public List<Item> findAvailableItemsByTextFreeBetween(List<String> patterns, BookingState excludedState,
+                                                          ZonedDateTime start, ZonedDateTime end, Pageable pageable) {
+        return findItems(patterns, false, pageable, (query, item) -> List.of(availableOnly(item),
+                freeBetween(query, item, excludedState, start, end)));
+    }
+
+    @Override
+    public List<Item> findAvailableItemsByTextFreeBetweenRanked(List<String> patterns, BookingState excludedState,
+                                                                ZonedDateTime start, ZonedDateTime end,
+                                                                Pageable pageable) {
+        return findItems(patterns, true, pageable, (query, item) -> List.of(availableOnly(item),
+                freeBetween(query, item, excludedState, start, end)));
+    }
+
+    @Override
+    public List<Item> findItemsByTextAndFilter(List<String> patterns, Boolean available, Boolean hasRequest,
+                                               Long ownerId, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        return findItems(patterns, false, pageable, (query, item) -> {
+            List<Predicate> filters = new ArrayList<>();
+            if (available != null) {
+                filters.add(cb.equal(item.get("available"), available));
+            }
+            if (hasRequest != null) {
+                filters.add(hasRequest ? cb.isNotNull(item.get("request")) : cb.isNull(item.get("request")));
+            }
+            if (ownerId != null) {
+                filters.add(cb.equal(item.get("owner").get("id"), ownerId));
+            }
+            return filters;
+        });
+    }
+
+    @Override
+    public List<ItemFacetGroup> countFacetGroupsByText(List<String> patterns) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ItemFacetGroup> query = cb.createQuery(ItemFacetGroup.class);
+        Root<Item> item = query.from(Item.class);
+        Join<Item, ItemRequest> request = item.join("request", JoinType.LEFT);
+        query.select(cb.construct(ItemFacetGroup.class, item.get("available"), item.get("owner").get("id"),
+                        cb.count(item), cb.count(request.get("id"))))
+                .where(matchesText(cb, item, patterns))
+                .groupBy(item.get("available"), item.get("owner").get("id"));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    private List<Item> findItems(List<String> patterns, boolean ranked, Pageable pageable,
+                                 BiFunction<CriteriaQuery<Item>, Root<Item>, List<Predicate>> filters) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Item> query = cb.createQuery(Item.class);
+        Root<Item> item = query.from(Item.class);
+        // Владелец и запрос загружаются в том же запросе, чтобы страница вещей не порождала N+1 запросов
+        item.fetch("owner");
+        item.fetch("request", JoinType.LEFT).fetch("requestor", JoinType.LEFT);
+
+        List<Predicate> predicates = new ArrayList<>(filters.apply(query, item));
+        predicates.add(matchesText(cb, item, patterns));
+        query.select(item).where(predicates.toArray(Predicate[]::new));
+        if (ranked) {
+            // Сначала вещи, в названии которых есть все основы запроса
+            Expression<Integer> nameRank = cb.<Integer>selectCase()
+                    .when(matchesAll(cb, normalized(cb, item.get("name")), patterns), 0)
+                    .otherwise(1);
+            query.orderBy(cb.asc(nameRank), cb.asc(item.get("id")));
+        } else {
+            query.orderBy(cb.asc(item.get("id")));
+        }
+
+        TypedQuery<Item> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        return typedQuery.getResultList();
+    }
+
+    private Predicate availableOnly(Root<Item> item) {
+        return entityManager.getCriteriaBuilder().isTrue(item.get("available"));
+    }
+
+    // Пересекающиеся с периодом бронирования отсекаются анти-соединением в том же запросе, что и поиск по тексту
+    private Predicate freeBetween(CriteriaQuery<Item> query, Root<Item> item, BookingState excludedState,
+                                  ZonedDateTime start, ZonedDateTime end) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        Subquery<Long> booked = query.subquery(Long.class);
+        Root<Booking> booking = booked.from(Booking.class);
+        booked.select(booking.get("id"))
+                .where(cb.equal(booking.get("item"), item),
+                        cb.notEqual(booking.get("state"), excludedState),
+                        cb.lessThanOrEqualTo(booking.get("start"), end),
+                        cb.greaterThanOrEqualTo(booking.get("end"), start));
+        return cb.not(cb.exists(booked));
+    }
+
+    // Каждый шаблон должен встретиться в названии или в описании
+    private static Predicate matchesText(CriteriaBuilder cb, Root<Item> item, List<String> patterns) {
+        Expression<String> name = normalized(cb, item.get("name"));
+        Expression<String> description = normalized(cb, item.get("description"));
+        return cb.and(patterns.stream()
+                .map(pattern -> cb.or(like(cb, name, pattern), like(cb, description, pattern)))
+                .toArray(Predicate[]::new));
+    }
+
+    private static Predicate matchesAll(CriteriaBuilder cb, Expression<String> text, List<String> patterns) {
+        return cb.and(patterns.stream()
+                .map(pattern -> like(cb, text, pattern))
+                .toArray(Predicate[]::new));
+    }
+
+    private static Predicate like(CriteriaBuilder cb, Expression<String> text, String pattern) {
+        return cb.like(text, pattern, ItemTextAnalyzer.LIKE_ESCAPE);
+    }
+
+    private static Expression<String> normalized(CriteriaBuilder cb, Expression<String> text) {
+        return cb.function("replace", String.class, cb.lower(text), cb.literal("ё"), cb.literal("е"));
+    }
+}
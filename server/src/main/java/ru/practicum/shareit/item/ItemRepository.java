@@ -1,20 +1,67 @@
 package ru.practicum.shareit.item;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.BookingState;
 import ru.practicum.shareit.item.model.Item;
 
+import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
 
-public interface ItemRepository extends JpaRepository<Item, Long> {
-    @Query("SELECT i FROM Item i WHERE LOWER(i.name) LIKE LOWER(CONCAT('%', :text, '%')) " +
-            "OR LOWER(i.description) LIKE LOWER(CONCAT('%', :text, '%'))")
-    List<Item> findItemsByText(@Param("text") String text);
+public interface ItemRepository extends JpaRepository<Item, Long>, ItemQueryRepository {
+    @EntityGraph(attributePaths = {"owner", "request", "request.requestor"})
+    List<Item> findAllByIdIn(Collection<Long> ids);
+
+    @Query("SELECT i.id AS id, i.name AS name, i.description AS description, i.available AS available, " +
+            "i.owner.id AS ownerId, r.id AS requestId FROM Item i LEFT JOIN i.request r")
+    List<ItemSearchView> findAllSearchViews();
 
     List<Item> findAllByOwnerId(Long ownerId);
 
+    // Страница вещей владельца по ключу: вещи с id больше последнего id предыдущей страницы
+    @EntityGraph(attributePaths = {"owner", "request", "request.requestor"})
+    List<Item> findAllByOwnerIdAndIdGreaterThanOrderByIdAsc(Long ownerId, Long afterId, Limit limit);
+
     List<Item> findAllByRequestId(Long requestId);
 
     List<Item> findAllByRequestIdIn(List<Long> requestIds);
+
+    // Пересчитывает даты последнего и следующего бронирований вещей itemIds одним UPDATE.
+    // Подзапросы читают бронирования вещи по индексам bookings_item_id_end_date_idx и bookings_item_id_start_date_idx.
+    // flushAutomatically: в транзакции изменения бронирований должны попасть в базу до пересчета
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Item i SET " +
+            "i.lastBookingEnd = (SELECT MAX(b.end) FROM Booking b " +
+            "WHERE b.item.id = i.id AND b.state <> :excludedState AND b.end < :now), " +
+            "i.nextBookingStart = (SELECT MIN(b.start) FROM Booking b " +
+            "WHERE b.item.id = i.id AND b.state <> :excludedState AND b.start > :now) " +
+            "WHERE i.id IN :itemIds")
+    int updateBookingDates(@Param("itemIds") Collection<Long> itemIds,
+                           @Param("excludedState") BookingState excludedState,
+                           @Param("now") ZonedDateTime now);
+
+    // Пересчитывает даты последнего и следующего бронирований вещей с id в диапазоне (afterId, lastId].
+    // Полный пересчет идет такими диапазонами, каждый в своей транзакции, чтобы не блокировать всю таблицу
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Item i SET " +
+            "i.lastBookingEnd = (SELECT MAX(b.end) FROM Booking b " +
+            "WHERE b.item.id = i.id AND b.state <> :excludedState AND b.end < :now), " +
+            "i.nextBookingStart = (SELECT MIN(b.start) FROM Booking b " +
+            "WHERE b.item.id = i.id AND b.state <> :excludedState AND b.start > :now) " +
+            "WHERE i.id > :afterId AND i.id <= :lastId")
+    int updateBookingDatesByIdBetween(@Param("afterId") Long afterId,
+                                      @Param("lastId") Long lastId,
+                                      @Param("excludedState") BookingState excludedState,
+                                      @Param("now") ZonedDateTime now);
+
+    @Query("SELECT MAX(i.id) FROM Item i")
+    Long findMaxId();
 }
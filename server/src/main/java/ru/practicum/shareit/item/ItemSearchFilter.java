@@ -0,0 +1,35 @@
+package ru.practicum.shareit.item;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Необязательные фильтры поиска вещей, null означает, что фильтр не задан
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemSearchFilter {
+    private Boolean available;
+    private Boolean hasRequest;
+    private Long ownerId;
+
+    public boolean matchesAvailable(boolean itemAvailable) {
+        return available == null || available == itemAvailable;
+    }
+
+    public boolean matchesRequest(boolean itemHasRequest) {
+        return hasRequest == null || hasRequest == itemHasRequest;
+    }
+
+    public boolean matchesOwner(Long itemOwnerId) {
+        return ownerId == null || ownerId.equals(itemOwnerId);
+    }
+
+    // Сколько из total вещей, среди которых withRequest созданы по запросу, проходят фильтр по запросу
+    public long countMatchingRequest(long total, long withRequest) {
+        if (hasRequest == null) {
+            return total;
+        }
+        return hasRequest ? withRequest : total - withRequest;
+    }
+}
@@ -0,0 +1,458 @@
+package ru.practicum.shareit.item;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+// Инвертированный индекс по триграммам названия и описания вещей.
+// Для каждой подстроки длиной GRAM_LENGTH символов хранится отсортированный массив id вещей, в которых она встречается.
+// Поиск пересекает массивы триграмм запроса и проверяет кандидатов на вхождение подстроки,
+// поэтому время поиска зависит от количества совпадений, а не от размера каталога.
+// Более короткие граммы не индексируются: их списки содержат почти весь каталог и не сужают поиск,
+// поэтому запрос короче GRAM_LENGTH символов проверяется перебором вещей.
+// Дополнительно индексируются основы слов (ItemTextAnalyzer), и вещь находится по другой форме слова:
+// запрос "дрели" находит "Дрель", если все основы запроса есть среди основ вещи.
+// В нечетком режиме неизвестная основа запроса заменяется близкими по расстоянию Левенштейна основами из словаря.
+// Кандидаты в словаре отбираются по общим биграммам, поэтому словарь целиком не перебирается.
+// В режиме shareit.search.mode=database индекс не строится и поиск выполняет база данных
+@Slf4j
+@Component
+public class ItemSearchIndex {
+    private static final int GRAM_LENGTH = 3;
+    private static final int NAME_WEIGHT = 3;
+    private static final int VOCABULARY_GRAM_LENGTH = 2;
+    // Граница слова в биграммах словаря, чтобы учитывались первая и последняя буквы основы
+    private static final char WORD_BOUNDARY = '$';
+    private static final Comparator<ScoredItem> RELEVANCE_ORDER = Comparator.comparingInt(ScoredItem::score)
+            .reversed()
+            .thenComparing(ScoredItem::id);
+
+    private final ItemRepository itemRepository;
+    private final boolean enabled;
+
+    private final Map<Long, IndexedItem> items = new HashMap<>();
+    private final Map<String, IdPosting> postings = new HashMap<>();
+    private final Map<String, IdPosting> stemPostings = new HashMap<>();
+    // Биграмма -> основы словаря, в которых она встречается
+    private final Map<String, Set<String>> vocabularyGrams = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ItemSearchIndex(ItemRepository itemRepository,
+                           @Value("${shareit.search.mode:memory}") ItemSearchMode mode) {
+        this.itemRepository = itemRepository;
+        this.enabled = mode != ItemSearchMode.DATABASE;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!enabled) {
+            return;
+        }
+        List<ItemSearchView> views = itemRepository.findAllSearchViews();
+        views.forEach(view -> add(view.getId(), view.getName(), view.getDescription(), view.getAvailable(),
+                view.getOwnerId(), view.getRequestId() != null));
+        log.info("Поисковый индекс вещей построен, проиндексировано вещей: {}", views.size());
+    }
+
+    public void add(Item item) {
+        if (!enabled) {
+            return;
+        }
+        add(item.getId(), item.getName(), item.getDescription(), item.getAvailable(),
+                item.getOwner().getId(), item.getRequest() != null);
+    }
+
+    public void remove(Long itemId) {
+        lock.writeLock().lock();
+        try {
+            IndexedItem removed = items.remove(itemId);
+            if (removed != null) {
+                // Триграммы не хранятся в вещи, а заново выделяются из ее текста
+                trigrams(removed.name(), removed.description())
+                        .forEach(gram -> removeId(postings, gram, itemId));
+                removed.stems().forEach(stem -> {
+                    removeId(stemPostings, stem, itemId);
+                    if (!stemPostings.containsKey(stem)) {
+                        vocabularyGramsOf(stem).forEach(gram -> removePosting(vocabularyGrams, gram, stem));
+                    }
+                });
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Возвращает страницу id доступных вещей, в названии или описании которых есть text, в порядке возрастания id.
+    // Для отбора страницы используется куча размером offset + limit, поэтому все совпадения не сортируются.
+    // При fuzzy = true слова запроса с опечатками ищутся по близким основам
+    public List<Long> search(String text, boolean fuzzy, long offset, int limit) {
+        long bound = offset + limit;
+        // В вершине кучи вещь с наибольшим id, она вытесняется первой
+        PriorityQueue<Long> heap = new PriorityQueue<>(Comparator.reverseOrder());
+        forEachMatch(parse(text, fuzzy), (id, item) -> {
+            heap.offer(id);
+            if (heap.size() > bound) {
+                heap.poll();
+            }
+        });
+        List<Long> result = new ArrayList<>(heap);
+        result.sort(Comparator.naturalOrder());
+        return page(result, offset);
+    }
+
+    // Возвращает страницу id найденных вещей в порядке убывания релевантности.
+    // Совпадение в названии весит больше совпадения в описании, каждое вхождение текста или слова
+    // с той же основой увеличивает оценку.
+    // Как и в search, в памяти держится только offset + limit лучших вещей
+    public List<Long> searchRanked(String text, boolean fuzzy, long offset, int limit) {
+        Query query = parse(text, fuzzy);
+        long bound = offset + limit;
+        // В вершине кучи наименее релевантная вещь, она вытесняется первой
+        PriorityQueue<ScoredItem> heap = new PriorityQueue<>(RELEVANCE_ORDER.reversed());
+        forEachMatch(query, (id, item) -> {
+            heap.offer(new ScoredItem(id, item.score(query)));
+            if (heap.size() > bound) {
+                heap.poll();
+            }
+        });
+        List<ScoredItem> result = new ArrayList<>(heap);
+        result.sort(RELEVANCE_ORDER);
+        return page(result, offset).stream()
+                .map(ScoredItem::id)
+                .toList();
+    }
+
+    // Возвращает страницу id найденных вещей, проходящих фильтр, в порядке возрастания id,
+    // и группы всех найденных вещей для подсчета фасетов. Страница и группы собираются за один проход по кандидатам
+    public FacetedSearch searchFaceted(String text, ItemSearchFilter filter, long offset, int limit) {
+        long bound = offset + limit;
+        PriorityQueue<Long> heap = new PriorityQueue<>(Comparator.reverseOrder());
+        // Ключ группы - доступность и владелец
+        Map<Boolean, Map<Long, ItemFacetGroup>> groups = new HashMap<>();
+        forEachTextMatch(parse(text, false), (id, item) -> {
+            ItemFacetGroup group = groups.computeIfAbsent(item.available(), available -> new HashMap<>())
+                    .computeIfAbsent(item.ownerId(), ownerId -> new ItemFacetGroup(item.available(), ownerId, 0L, 0L));
+            group.setTotal(group.getTotal() + 1);
+            if (item.hasRequest()) {
+                group.setWithRequest(group.getWithRequest() + 1);
+            }
+            if (filter.matchesAvailable(item.available()) && filter.matchesRequest(item.hasRequest())
+                    && filter.matchesOwner(item.ownerId())) {
+                heap.offer(id);
+                if (heap.size() > bound) {
+                    heap.poll();
+                }
+            }
+        });
+        List<Long> result = new ArrayList<>(heap);
+        result.sort(Comparator.naturalOrder());
+        return new FacetedSearch(page(result, offset), groups.values().stream()
+                .flatMap(byOwner -> byOwner.values().stream())
+                .toList());
+    }
+
+    // Передает в action каждую доступную вещь, в названии или описании которой есть текст запроса
+    // или все основы его слов
+    private void forEachMatch(Query query, BiConsumer<Long, IndexedItem> action) {
+        forEachTextMatch(query, (id, item) -> {
+            if (item.available()) {
+                action.accept(id, item);
+            }
+        });
+    }
+
+    // То же, что forEachMatch, но включая недоступные вещи
+    private void forEachTextMatch(Query query, BiConsumer<Long, IndexedItem> action) {
+        lock.readLock().lock();
+        try {
+            Collection<Long> candidates;
+            if (query.text().length() < GRAM_LENGTH) {
+                // Для короткого запроса нет триграмм, вещи перебираются целиком
+                candidates = items.keySet();
+            } else {
+                Set<Long> matched = findCandidates(query.text());
+                matched.addAll(findStemCandidates(query.stemGroups()));
+                candidates = matched;
+            }
+            for (Long id : candidates) {
+                IndexedItem item = items.get(id);
+                if (item.contains(query)) {
+                    action.accept(id, item);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static <T> List<T> page(List<T> sorted, long offset) {
+        return sorted.subList((int) Math.min(offset, sorted.size()), sorted.size());
+    }
+
+    private static void removeId(Map<String, IdPosting> postings, String key, long id) {
+        IdPosting posting = postings.get(key);
+        posting.remove(id);
+        if (posting.isEmpty()) {
+            postings.remove(key);
+        }
+    }
+
+    private static <T> void removePosting(Map<String, Set<T>> postings, String key, T value) {
+        Set<T> values = postings.get(key);
+        values.remove(value);
+        if (values.isEmpty()) {
+            postings.remove(key);
+        }
+    }
+
+    // Разбирает запрос на основы. Каждой основе соответствует группа допустимых основ вещи:
+    // сама основа, а в нечетком режиме для отсутствующей в словаре основы - близкие к ней основы словаря
+    private Query parse(String text, boolean fuzzy) {
+        List<Set<String>> stemGroups = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (String stem : new LinkedHashSet<>(ItemTextAnalyzer.stems(text))) {
+                if (!fuzzy || stemPostings.containsKey(stem)) {
+                    stemGroups.add(Set.of(stem));
+                } else {
+                    stemGroups.add(findSimilarStems(stem));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new Query(ItemTextAnalyzer.normalize(text), stemGroups);
+    }
+
+    // Основы словаря на расстоянии Левенштейна не больше допустимого для длины основы.
+    // Правка меняет не больше двух биграмм, поэтому у близкой основы не меньше
+    // (число биграмм запроса - 2 * расстояние) общих биграмм с запросом
+    private Set<String> findSimilarStems(String stem) {
+        int maxDistance = maxEditDistance(stem);
+        if (maxDistance == 0) {
+            return Set.of();
+        }
+        List<String> grams = vocabularyGramsOf(stem);
+        int minSharedGrams = grams.size() - VOCABULARY_GRAM_LENGTH * maxDistance;
+        Map<String, Integer> sharedGrams = new HashMap<>();
+        grams.forEach(gram -> vocabularyGrams.getOrDefault(gram, Set.of())
+                .forEach(word -> sharedGrams.merge(word, 1, Integer::sum)));
+        Set<String> similar = new HashSet<>();
+        sharedGrams.forEach((word, shared) -> {
+            if (shared >= minSharedGrams && editDistance(stem, word, maxDistance) <= maxDistance) {
+                similar.add(word);
+            }
+        });
+        return similar;
+    }
+
+    // Короткие основы не исправляются, иначе почти любое слово становится похожим на другое
+    private static int maxEditDistance(String stem) {
+        if (stem.length() < 4) {
+            return 0;
+        }
+        return stem.length() < 8 ? 1 : 2;
+    }
+
+    // Расстояние Левенштейна; как только оно точно превысит maxDistance, возвращается maxDistance + 1
+    static int editDistance(String first, String second, int maxDistance) {
+        if (Math.abs(first.length() - second.length()) > maxDistance) {
+            return maxDistance + 1;
+        }
+        int[] previous = new int[second.length() + 1];
+        int[] current = new int[second.length() + 1];
+        for (int j = 0; j <= second.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= first.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= second.length(); j++) {
+                int cost = first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > maxDistance) {
+                return maxDistance + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[second.length()];
+    }
+
+    // Биграммы основы вместе с границами слова, для "дрел" это "$д", "др", "ре", "ел", "л$"
+    private static List<String> vocabularyGramsOf(String stem) {
+        String word = WORD_BOUNDARY + stem + WORD_BOUNDARY;
+        List<String> grams = new ArrayList<>();
+        for (int i = 0; i + VOCABULARY_GRAM_LENGTH <= word.length(); i++) {
+            grams.add(word.substring(i, i + VOCABULARY_GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    private void add(Long id, String name, String description, boolean available, Long ownerId, boolean hasRequest) {
+        String lowerName = ItemTextAnalyzer.normalize(name);
+        String lowerDescription = ItemTextAnalyzer.normalize(description);
+        Set<String> grams = trigrams(lowerName, lowerDescription);
+        List<String> nameStems = ItemTextAnalyzer.stems(lowerName);
+        List<String> descriptionStems = ItemTextAnalyzer.stems(lowerDescription);
+        Set<String> stems = new HashSet<>(nameStems);
+        stems.addAll(descriptionStems);
+        IndexedItem item = new IndexedItem(lowerName, lowerDescription, available, ownerId, hasRequest, stems,
+                nameStems, descriptionStems);
+
+        lock.writeLock().lock();
+        try {
+            // При обновлении вещи сначала убираем ее старые n-граммы
+            remove(id);
+            items.put(id, item);
+            grams.forEach(gram -> postings.computeIfAbsent(gram, g -> new IdPosting()).add(id));
+            item.stems().forEach(stem -> {
+                if (!stemPostings.containsKey(stem)) {
+                    vocabularyGramsOf(stem).forEach(gram ->
+                            vocabularyGrams.computeIfAbsent(gram, g -> new HashSet<>()).add(stem));
+                }
+                stemPostings.computeIfAbsent(stem, s -> new IdPosting()).add(id);
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Вещи, в тексте которых есть все триграммы запроса. Запрос не короче GRAM_LENGTH символов
+    private Set<Long> findCandidates(String query) {
+        List<IdPosting> lists = new ArrayList<>();
+        for (int i = 0; i + GRAM_LENGTH <= query.length(); i++) {
+            IdPosting ids = postings.get(query.substring(i, i + GRAM_LENGTH));
+            if (ids == null) {
+                return new HashSet<>();
+            }
+            lists.add(ids);
+        }
+        // Перебираем самый короткий массив и ищем его id в остальных двоичным поиском
+        lists.sort(Comparator.comparingInt(IdPosting::size));
+        IdPosting smallest = lists.getFirst();
+        Set<Long> candidates = new HashSet<>();
+        for (int i = 0; i < smallest.size(); i++) {
+            long id = smallest.get(i);
+            boolean inAll = true;
+            for (int j = 1; j < lists.size() && inAll; j++) {
+                inAll = lists.get(j).contains(id);
+            }
+            if (inAll) {
+                candidates.add(id);
+            }
+        }
+        return candidates;
+    }
+
+    // Вещи, в которых есть хотя бы одна основа из каждой группы запроса
+    private Set<Long> findStemCandidates(List<Set<String>> stemGroups) {
+        if (stemGroups.isEmpty()) {
+            return Set.of();
+        }
+        Set<Long> candidates = null;
+        for (Set<String> group : stemGroups) {
+            Set<Long> ids = new HashSet<>();
+            group.forEach(stem -> {
+                IdPosting posting = stemPostings.get(stem);
+                if (posting != null) {
+                    posting.forEach(ids::add);
+                }
+            });
+            if (candidates == null) {
+                candidates = ids;
+            } else {
+                candidates.retainAll(ids);
+            }
+            if (candidates.isEmpty()) {
+                return Set.of();
+            }
+        }
+        return candidates;
+    }
+
+    private static Set<String> trigrams(String name, String description) {
+        Set<String> grams = new HashSet<>();
+        collectGrams(name, grams);
+        collectGrams(description, grams);
+        return grams;
+    }
+
+    private static void collectGrams(String text, Set<String> grams) {
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_LENGTH));
+        }
+    }
+
+    private static int countOccurrences(String text, String query) {
+        int count = 0;
+        for (int i = text.indexOf(query); i >= 0; i = text.indexOf(query, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    private static int countStems(List<String> stems, Set<String> queryStems) {
+        return (int) stems.stream()
+                .filter(queryStems::contains)
+                .count();
+    }
+
+    // Запрос в нормализованном виде, группы допустимых основ его слов и все эти основы вместе
+    private record Query(String text, List<Set<String>> stemGroups, Set<String> stems) {
+        Query(String text, List<Set<String>> stemGroups) {
+            this(text, stemGroups, stemGroups.stream()
+                    .flatMap(Set::stream)
+                    .collect(Collectors.toSet()));
+        }
+    }
+
+    public record FacetedSearch(List<Long> itemIds, List<ItemFacetGroup> groups) {
+    }
+
+    private record IndexedItem(String name, String description, boolean available, Long ownerId, boolean hasRequest,
+                               Set<String> stems,
+                               List<String> nameStems, List<String> descriptionStems) {
+        boolean contains(Query query) {
+            return name.contains(query.text()) || description.contains(query.text()) || hasStems(query.stemGroups());
+        }
+
+        int score(Query query) {
+            return NAME_WEIGHT * (countOccurrences(name, query.text()) + countStems(nameStems, query.stems()))
+                    + countOccurrences(description, query.text()) + countStems(descriptionStems, query.stems());
+        }
+
+        private boolean hasStems(List<Set<String>> stemGroups) {
+            return !stemGroups.isEmpty() && stemGroups.stream()
+                    .allMatch(group -> group.stream().anyMatch(stems::contains));
+        }
+    }
+
+    private record ScoredItem(Long id, int score) {
+    }
+}
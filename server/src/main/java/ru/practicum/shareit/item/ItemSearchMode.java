@@ -0,0 +1,8 @@
+package ru.practicum.shareit.item;
+
+public enum ItemSearchMode {
+    // Поиск по индексу в памяти сервера
+    MEMORY,
+    // Поиск запросом к базе данных, на PostgreSQL использует триграммные GIN-индексы
+    DATABASE
+}
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.item;
+
+// Облегченное представление вещи для построения поискового индекса без загрузки владельца и запроса
+public interface ItemSearchView {
+    Long getId();
+
+    String getName();
+
+    String getDescription();
+
+    Boolean getAvailable();
+
+    Long getOwnerId();
+
+    Long getRequestId();
+}
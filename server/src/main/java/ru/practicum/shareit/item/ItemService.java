@@ -1,9 +1,12 @@
 package ru.practicum.shareit.item;
 
+import ru.practicum.shareit.item.dto.FreeSlotDto;
 import ru.practicum.shareit.item.dto.ItemOutDto;
+import ru.practicum.shareit.item.dto.ItemSearchResultDto;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemService {
@@ -11,13 +14,24 @@ public interface ItemService {
 
     Item updateItem(Long userId, Long itemId, UpdateItemRequest updateItemRequest);
 
-    List<ItemOutDto> getItemsByUserId(Long userId);
+    List<ItemOutDto> getItemsByUserId(Long userId, Long after, int limit);
 
     ItemOutDto getItemById(Long itemId);
 
     void deleteItem(Long userId, Long itemId);
 
-    List<Item> getItemsByText(String text);
+    List<Item> getItemsByText(String text, boolean ranked, boolean fuzzy, int from, int size);
+
+    ItemSearchResultDto getItemsByTextFaceted(String text, ItemSearchFilter filter, int from, int size);
+
+    List<String> getItemNameSuggestions(String prefix, int size);
+
+    List<Item> getSimilarItems(Long itemId, int size);
+
+    List<Item> getFreeItemsByText(String text, boolean ranked, boolean fuzzy, LocalDateTime start, LocalDateTime end,
+                                  int from, int size);
+
+    List<FreeSlotDto> getItemAvailability(Long itemId, LocalDateTime from, LocalDateTime to);
 
     Comment createComment(Long userId, Long itemId, Comment comment);
 }
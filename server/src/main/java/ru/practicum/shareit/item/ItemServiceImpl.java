@@ -2,13 +2,27 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import ru.practicum.shareit.OffsetPageRequest;
+import ru.practicum.shareit.booking.BookedInterval;
 import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingAvailabilityIndex;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingRole;
+import ru.practicum.shareit.booking.BookingState;
+import ru.practicum.shareit.config.CacheConfig;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.DataAccessException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.dto.FreeSlotDto;
+import ru.practicum.shareit.item.dto.ItemFacetsDto;
 import ru.practicum.shareit.item.dto.ItemOutDto;
+import ru.practicum.shareit.item.dto.ItemSearchResultDto;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
@@ -17,25 +31,43 @@ import ru.practicum.shareit.request.ItemRequestRepository;
 import ru.practicum.shareit.user.UserRepository;
 import ru.practicum.shareit.user.model.User;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ItemServiceImpl implements ItemService {
+    private static final int OWNER_FACET_SIZE = 10;
+    // Сколько найденных вещей проверяется на занятость одним запросом в getFreeItemsByText
+    private static final int FREE_CHECK_CHUNK_SIZE = 500;
+    // Отступ свободного промежутка от бронирований: их отрезки включают концы, и промежуток,
+    // начинающийся ровно в момент окончания бронирования, нельзя было бы забронировать
+    private static final Duration FREE_SLOT_GAP = Duration.ofSeconds(1);
+
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
     private final CommentRepository commentRepository;
     private final BookingRepository bookingRepository;
     private final ItemRequestRepository itemRequestRepository;
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemSuggestIndex itemSuggestIndex;
+    private final ItemSimilarityIndex itemSimilarityIndex;
+    private final BookingAvailabilityIndex bookingAvailabilityIndex;
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.ITEM_SEARCH, allEntries = true)
     public Item createItem(Item item, Long userId, Long itemRequestId) {
         // Проверка существования пользователя
         // Вещь не может быть null так как создается в маппере
@@ -45,10 +77,18 @@ public class ItemServiceImpl implements ItemService {
             item.setRequest(itemRequestRepository.findById(itemRequestId)
                     .orElseThrow(() -> new NotFoundException("Запрос вещи с таким id не найден")));
         }
-        return itemRepository.save(item);
+        Item savedItem = itemRepository.save(item);
+        itemSearchIndex.add(savedItem);
+        itemSuggestIndex.add(savedItem);
+        itemSimilarityIndex.add(savedItem);
+        return savedItem;
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.ITEMS, key = "#itemId"),
+            @CacheEvict(cacheNames = CacheConfig.ITEM_SEARCH, allEntries = true)
+    })
     public Item updateItem(Long userId, Long itemId, UpdateItemRequest updateItemRequest) {
         // Проверка существования вещи
         Item item = itemRepository.findById(itemId)
@@ -70,80 +110,52 @@ public class ItemServiceImpl implements ItemService {
         if (updateItemRequest.hasAvailable()) {
             item.setAvailable(updateItemRequest.getAvailable());
         }
-        return itemRepository.save(item);
+        Item savedItem = itemRepository.save(item);
+        itemSearchIndex.add(savedItem);
+        itemSuggestIndex.add(savedItem);
+        itemSimilarityIndex.add(savedItem);
+        return savedItem;
     }
 
     @Override
-    public List<ItemOutDto> getItemsByUserId(Long userId) {
+    public List<ItemOutDto> getItemsByUserId(Long userId, Long after, int limit) {
         // Проверка существования пользователя
         userRepository.findById(userId).orElseThrow(() -> new NotFoundException("Пользователь не найден"));
-        List<Item> items = itemRepository.findAllByOwnerId(userId);
-        // Проверка, что у пользователя есть вещи
+        // after - id последней вещи предыдущей страницы, для первой страницы не передается
+        List<Item> items = itemRepository.findAllByOwnerIdAndIdGreaterThanOrderByIdAsc(userId,
+                after == null ? 0L : after, Limit.of(limit));
         if (items.isEmpty()) {
-            throw new NotFoundException("У данного пользователя нет вещей");
+            // Проверка, что у пользователя есть вещи
+            if (after == null) {
+                throw new NotFoundException("У данного пользователя нет вещей");
+            }
+            // Страницы закончились
+            return List.of();
         }
-        // Преобразуем в itemDto так как только у них есть поля lastBooking и nextBooking
-        List<ItemOutDto> itemOutDtos = items.stream()
-                .map(ItemMapper::mapToItemOutDto)
+        List<Long> itemIds = items.stream()
+                .map(Item::getId)
                 .toList();
-
-        List<Booking> bookings = bookingRepository.findAllByItemOwnerIdOrderByStartDesc(userId);
-        // Получаем список бронирований для каждой вещи
-        Map<Long, List<Booking>> bookingsForEachItem;
-        if (!bookings.isEmpty()) {
-            bookingsForEachItem = bookings.stream()
-                    .collect(Collectors.groupingBy(booking -> booking.getItem().getId()));
-        } else {
-            bookingsForEachItem = new HashMap<>();
-        }
-        // Получаем список комментариев для каждой вещи
-        Map<Long, List<Comment>> commentsForEachItem = commentRepository.findAll().stream()
+        // Получаем список комментариев только для вещей пользователя
+        Map<Long, List<Comment>> commentsForEachItem = commentRepository.findAllByItemIdIn(itemIds).stream()
                 .collect(Collectors.groupingBy(comment -> comment.getItem().getId()));
 
-        // Находим и присваиваем каждой вещи даты последнего и следующего бронирований
-        if (!bookingsForEachItem.isEmpty()) {
-            itemOutDtos.forEach(itemDto -> {
-                List<Booking> bookingsForItem = bookingsForEachItem.get(itemDto.getId());
-
-                Booking lastBooking = bookingsForItem.stream()
-                        // выбираем все бронирования, которые закончились до now
-                        .filter(booking -> booking.getEnd().isBefore(ZonedDateTime.now(ZoneOffset.UTC)))
-                        // выбираем одно бронирование с самой поздней датой
-                        .max(Comparator.comparing(Booking::getEnd))
-                        .orElse(null);
-
-                Booking nextBooking = bookingsForItem.stream()
-                        // выбираем все бронирования, которые начинаются после now
-                        .filter(booking -> booking.getStart().isAfter(ZonedDateTime.now(ZoneOffset.UTC)))
-                        // выбираем одно бронирование с самой ранней датой
-                        .min(Comparator.comparing(Booking::getStart))
-                        .orElse(null);
-
-                if (lastBooking != null) {
-                    itemDto.setLastBooking(lastBooking.getEnd().toLocalDateTime());
-                }
-                if (nextBooking != null) {
-                    itemDto.setNextBooking(nextBooking.getStart().toLocalDateTime());
-                }
-            });
-        }
-        // Присваиваем каждой вещи комментарии
-        if (!commentsForEachItem.isEmpty()) {
-            itemOutDtos.forEach(itemDto -> {
-                List<Comment> comments = commentsForEachItem.get(itemDto.getId());
-                if (comments != null && !comments.isEmpty()) {
-                    itemDto.setComments(
-                            comments.stream()
-                                    .map(CommentMapper::mapToCommentResponseDto)
-                                    .toList()
-                    );
-                }
-            });
-        }
-        return itemOutDtos;
+        // Даты последнего и следующего бронирований хранятся в самих вещах, бронирования не читаются
+        return items.stream()
+                .map(item -> {
+                    ItemOutDto itemDto = ItemMapper.mapToOwnerItemOutDto(item);
+                    List<Comment> comments = commentsForEachItem.get(item.getId());
+                    if (comments != null) {
+                        itemDto.setComments(comments.stream()
+                                .map(CommentMapper::mapToCommentResponseDto)
+                                .toList());
+                    }
+                    return itemDto;
+                })
+                .toList();
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.ITEMS, key = "#itemId")
     public ItemOutDto getItemById(Long itemId) {
         // Проверка существования вещи
         ItemOutDto itemOutDto = ItemMapper.mapToItemOutDto(
@@ -164,6 +176,10 @@ public class ItemServiceImpl implements ItemService {
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.ITEMS, key = "#itemId"),
+            @CacheEvict(cacheNames = CacheConfig.ITEM_SEARCH, allEntries = true)
+    })
     public void deleteItem(Long userId, Long itemId) {
         // Проверка существования вещи
         Item item = itemRepository.findById(itemId)
@@ -173,20 +189,229 @@ public class ItemServiceImpl implements ItemService {
             throw new DataAccessException("Только владелец вещи может удалить вещь");
         }
         itemRepository.delete(item);
+        itemSearchIndex.remove(itemId);
+        itemSuggestIndex.remove(itemId);
+        itemSimilarityIndex.remove(itemId);
+    }
+
+    @Override
+    // sync = true: одновременные промахи по одному ключу выполняют поиск только один раз
+    @Cacheable(cacheNames = CacheConfig.ITEM_SEARCH, sync = true,
+            key = "#text.strip().toLowerCase() + ':' + #ranked + ':' + #fuzzy + ':' + #from + ':' + #size")
+    public List<Item> getItemsByText(String text, boolean ranked, boolean fuzzy, int from, int size) {
+        // Поиск не зависит от регистра и пробелов по краям, как и ключ кэша
+        Pageable page = OffsetPageRequest.of(from, size);
+        String query = text.strip().toLowerCase();
+        if (query.isEmpty()) {
+            return List.of();
+        }
+        if (!itemSearchIndex.isEnabled()) {
+            // Недоступные вещи отбрасываются и страница ограничивается в самом запросе.
+            // Ищутся основы слов запроса, поэтому "дрели" находит "Дрель".
+            // Нечеткий поиск выполняет только индекс, здесь он сводится к поиску по основам
+            List<String> patterns = ItemTextAnalyzer.toLikePatterns(query);
+            return ranked
+                    ? itemRepository.findAvailableItemsByTextRanked(patterns, page)
+                    : itemRepository.findAvailableItemsByText(patterns, page);
+        }
+        // Индекс возвращает id только доступных вещей, поэтому из базы загружаются лишь вещи страницы
+        List<Long> itemIds = ranked
+                ? itemSearchIndex.searchRanked(query, fuzzy, page.getOffset(), page.getPageSize())
+                : itemSearchIndex.search(query, fuzzy, page.getOffset(), page.getPageSize());
+        return findAllInOrder(itemIds);
+    }
+
+    // Не кэшируется: результат зависит от бронирований, а кэш поиска сбрасывается только при изменении вещей
+    @Override
+    public List<Item> getFreeItemsByText(String text, boolean ranked, boolean fuzzy, LocalDateTime start,
+                                         LocalDateTime end, int from, int size) {
+        if (start == null || end == null || !start.isBefore(end)) {
+            throw new BadRequestException("Начало периода должно быть задано вместе с концом и быть раньше него");
+        }
+        Pageable page = OffsetPageRequest.of(from, size);
+        String query = text.strip().toLowerCase();
+        if (query.isEmpty()) {
+            return List.of();
+        }
+        ZonedDateTime startUtc = start.atZone(ZoneOffset.UTC);
+        ZonedDateTime endUtc = end.atZone(ZoneOffset.UTC);
+        if (!itemSearchIndex.isEnabled()) {
+            List<String> patterns = ItemTextAnalyzer.toLikePatterns(query);
+            return ranked
+                    ? itemRepository.findAvailableItemsByTextFreeBetweenRanked(patterns, BookingState.REJECTED,
+                    startUtc, endUtc, page)
+                    : itemRepository.findAvailableItemsByTextFreeBetween(patterns, BookingState.REJECTED,
+                    startUtc, endUtc, page);
+        }
+        // Занятые вещи отсеиваются до того, как берется страница, иначе страницы получались бы неполными.
+        // Найденные вещи берутся из индекса окнами в порядке выдачи: сначала первые limit вещей, затем следующие
+        // до удвоенного limit и так далее, поэтому индекс держит в куче не больше limit вещей, а не все совпадения.
+        // Вещи окна проверяются на занятость частями по FREE_CHECK_CHUNK_SIZE, проверка останавливается,
+        // как только набраны свободные вещи до конца страницы
+        long needed = page.getOffset() + page.getPageSize();
+        List<Long> freeIds = new ArrayList<>();
+        int checked = 0;
+        int limit = (int) Math.min(Math.max(needed, FREE_CHECK_CHUNK_SIZE), Integer.MAX_VALUE);
+        while (freeIds.size() < needed) {
+            int windowSize = limit - checked;
+            List<Long> matchedIds = ranked
+                    ? itemSearchIndex.searchRanked(query, fuzzy, checked, windowSize)
+                    : itemSearchIndex.search(query, fuzzy, checked, windowSize);
+            for (int chunkStart = 0; chunkStart < matchedIds.size() && freeIds.size() < needed;
+                 chunkStart += FREE_CHECK_CHUNK_SIZE) {
+                List<Long> chunk = matchedIds.subList(chunkStart,
+                        Math.min(chunkStart + FREE_CHECK_CHUNK_SIZE, matchedIds.size()));
+                Set<Long> bookedIds = new HashSet<>(bookingRepository.findBookedItemIds(chunk, BookingState.REJECTED,
+                        startUtc, endUtc));
+                chunk.stream()
+                        .filter(id -> !bookedIds.contains(id))
+                        .forEach(freeIds::add);
+            }
+            // Окно заполнено не целиком - других совпадений нет
+            if (matchedIds.size() < windowSize || limit == Integer.MAX_VALUE) {
+                break;
+            }
+            checked = limit;
+            limit = (int) Math.min(2L * limit, Integer.MAX_VALUE);
+        }
+        List<Long> pageIds = freeIds.stream()
+                .skip(page.getOffset())
+                .limit(page.getPageSize())
+                .toList();
+        return findAllInOrder(pageIds);
     }
 
     @Override
-    public List<Item> getItemsByText(String text) {
-        if (text.isBlank()) {
+    @Cacheable(cacheNames = CacheConfig.ITEM_SEARCH, sync = true,
+            key = "'faceted:' + #text.strip().toLowerCase() + ':' + #filter + ':' + #from + ':' + #size")
+    public ItemSearchResultDto getItemsByTextFaceted(String text, ItemSearchFilter filter, int from, int size) {
+        Pageable page = OffsetPageRequest.of(from, size);
+        String query = text.strip().toLowerCase();
+        if (query.isEmpty()) {
+            return new ItemSearchResultDto(List.of(), countFacets(List.of(), filter));
+        }
+        List<Item> items;
+        List<ItemFacetGroup> groups;
+        if (!itemSearchIndex.isEnabled()) {
+            // Страница и группы для фасетов - два запроса независимо от количества фасетов
+            List<String> patterns = ItemTextAnalyzer.toLikePatterns(query);
+            items = itemRepository.findItemsByTextAndFilter(patterns, filter.getAvailable(), filter.getHasRequest(),
+                    filter.getOwnerId(), page);
+            groups = itemRepository.countFacetGroupsByText(patterns);
+        } else {
+            ItemSearchIndex.FacetedSearch search = itemSearchIndex.searchFaceted(query, filter,
+                    page.getOffset(), page.getPageSize());
+            items = findAllInOrder(search.itemIds());
+            groups = search.groups();
+        }
+        return new ItemSearchResultDto(items.stream()
+                .map(ItemMapper::mapToItemOutDto)
+                .toList(), countFacets(groups, filter));
+    }
+
+    @Override
+    public List<String> getItemNameSuggestions(String prefix, int size) {
+        if (size <= 0) {
+            throw new BadRequestException("Параметр size должен быть положительным");
+        }
+        if (prefix.isBlank()) {
+            return List.of();
+        }
+        return itemSuggestIndex.suggest(prefix, size);
+    }
+
+    @Override
+    public List<Item> getSimilarItems(Long itemId, int size) {
+        // Проверка существования вещи
+        if (!itemRepository.existsById(itemId)) {
+            throw new NotFoundException("Вещь не найдена");
+        }
+        // Индекс возвращает id похожих доступных вещей, из базы загружаются только они
+        return findAllInOrder(itemSimilarityIndex.findSimilar(itemId, size));
+    }
+
+    @Override
+    public List<FreeSlotDto> getItemAvailability(Long itemId, LocalDateTime from, LocalDateTime to) {
+        // Проверка существования вещи
+        Item item = itemRepository.findById(itemId)
+                .orElseThrow(() -> new NotFoundException("Вещь не найдена"));
+        if (!from.isBefore(to)) {
+            throw new BadRequestException("Начало периода должно быть раньше его конца");
+        }
+        // Недоступную вещь нельзя забронировать, а прошедшее время - занять
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        ZonedDateTime windowStart = from.atZone(ZoneOffset.UTC).isAfter(now) ? from.atZone(ZoneOffset.UTC) : now;
+        ZonedDateTime windowEnd = to.atZone(ZoneOffset.UTC);
+        if (!item.getAvailable() || !windowStart.isBefore(windowEnd)) {
+            return List.of();
+        }
+        // Бронирования из расписания вещи упорядочены по началу, свободные промежутки собираются за один проход
+        List<FreeSlotDto> slots = new ArrayList<>();
+        ZonedDateTime cursor = windowStart;
+        for (BookedInterval booked : bookingAvailabilityIndex.findBooked(itemId, windowStart, windowEnd)) {
+            ZonedDateTime slotEnd = booked.getStart().minus(FREE_SLOT_GAP);
+            if (slotEnd.isAfter(cursor)) {
+                slots.add(new FreeSlotDto(toUtcLocal(cursor), toUtcLocal(slotEnd)));
+            }
+            ZonedDateTime slotStart = booked.getEnd().plus(FREE_SLOT_GAP);
+            if (slotStart.isAfter(cursor)) {
+                cursor = slotStart;
+            }
+        }
+        if (cursor.isBefore(windowEnd)) {
+            slots.add(new FreeSlotDto(toUtcLocal(cursor), toUtcLocal(windowEnd)));
+        }
+        return slots;
+    }
+
+    private static LocalDateTime toUtcLocal(ZonedDateTime dateTime) {
+        return dateTime.withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
+    }
+
+    // Считает фасеты по группам найденных вещей. Для каждого фасета применяются все фильтры, кроме его собственного,
+    // чтобы было видно, сколько вещей найдется при выборе другого значения этого фильтра
+    private static ItemFacetsDto countFacets(List<ItemFacetGroup> groups, ItemSearchFilter filter) {
+        Map<Boolean, Long> available = new LinkedHashMap<>(Map.of(true, 0L, false, 0L));
+        Map<Boolean, Long> hasRequest = new LinkedHashMap<>(Map.of(true, 0L, false, 0L));
+        Map<Long, Long> owners = new HashMap<>();
+        for (ItemFacetGroup group : groups) {
+            boolean availableMatches = filter.matchesAvailable(group.getAvailable());
+            boolean ownerMatches = filter.matchesOwner(group.getOwnerId());
+            long requestMatches = filter.countMatchingRequest(group.getTotal(), group.getWithRequest());
+            if (ownerMatches) {
+                available.merge(group.getAvailable(), requestMatches, Long::sum);
+            }
+            if (availableMatches && ownerMatches) {
+                hasRequest.merge(true, group.getWithRequest(), Long::sum);
+                hasRequest.merge(false, group.getTotal() - group.getWithRequest(), Long::sum);
+            }
+            if (availableMatches && requestMatches > 0) {
+                owners.merge(group.getOwnerId(), requestMatches, Long::sum);
+            }
+        }
+        Map<Long, Long> topOwners = owners.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(OWNER_FACET_SIZE)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+        return new ItemFacetsDto(available, hasRequest, topOwners);
+    }
+
+    // Загружает вещи одним запросом и возвращает их в порядке itemIds
+    private List<Item> findAllInOrder(List<Long> itemIds) {
+        if (itemIds.isEmpty()) {
             return List.of();
         }
-        // С помощью фильтра возвращаем только доступные вещи
-        return itemRepository.findItemsByText(text).stream()
-                .filter(item -> item.getAvailable() == true)
+        Map<Long, Item> itemsById = itemRepository.findAllByIdIn(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, item -> item));
+        return itemIds.stream()
+                .map(itemsById::get)
+                .filter(Objects::nonNull)
                 .toList();
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.ITEMS, key = "#itemId")
     public Comment createComment(Long userId, Long itemId, Comment comment) {
         // Проверка существования пользователя
         User author = userRepository.findById(userId)
@@ -197,7 +422,8 @@ public class ItemServiceImpl implements ItemService {
         comment.setAuthor(author);
         comment.setItem(item);
 
-        List<Booking> bookings = bookingRepository.findAllByBookerIdOrderByStartDesc(userId);
+        List<Booking> bookings = bookingRepository.findBookings(BookingRole.BOOKER, userId, BookingState.ALL,
+                ZonedDateTime.now(ZoneOffset.UTC), Pageable.unpaged());
         // Проверка, что у пользователя есть бронирования на эту вещь
         if (bookings.isEmpty()) {
             throw new BadRequestException("Оставлять комментарий к вещи может только пользователь, " +
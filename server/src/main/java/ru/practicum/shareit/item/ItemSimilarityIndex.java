@@ -0,0 +1,220 @@
+package ru.practicum.shareit.item;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+// TF-IDF векторы названия и описания вещей для поиска похожих вещей.
+// Вектор вещи хранится в двух массивах: отсортированные номера основ слов и их частоты в тексте вещи.
+// Вес idf не хранится в векторе и считается при запросе, поэтому добавление вещи не пересчитывает чужие векторы.
+// Норма вектора считается при индексации вещи по текущим idf и хранится в векторе. idf меняются медленно
+// с ростом каталога, поэтому при добавлении других вещей нормы не пересчитываются, а после построения индекса
+// при запуске пересчитываются один раз по итоговым idf.
+// Похожие вещи находятся через обратный индекс основа -> отсортированные id вещей, полный перебор вещей
+// не выполняется, а количество оцениваемых кандидатов ограничено MAX_CANDIDATES
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemSimilarityIndex {
+    // Основы, которые есть у большой доли вещей, почти не влияют на сходство,
+    // но их списки вещей длинные, поэтому кандидаты по ним не отбираются
+    private static final int COMMON_TERM_MIN_FREQUENCY = 100;
+    private static final int COMMON_TERM_SHARE = 10;
+    // Сколько вещей с общими основами оценивается за запрос. Основы вещи перебираются от редких к частым,
+    // поэтому кандидаты набираются по самым редким основам, которые сильнее всего влияют на сходство
+    private static final int MAX_CANDIDATES = 1000;
+    private static final Comparator<ScoredItem> SIMILARITY_ORDER = Comparator.comparingDouble(ScoredItem::score)
+            .reversed()
+            .thenComparing(ScoredItem::id);
+
+    private final ItemRepository itemRepository;
+
+    private final Map<String, Integer> termIds = new HashMap<>();
+    // Номер основы -> количество вещей, в тексте которых она есть
+    private int[] documentFrequencies = new int[1024];
+    private final Map<Long, TermVector> vectors = new HashMap<>();
+    // Номер основы -> доступные вещи, в тексте которых она есть
+    private IdPosting[] postings = new IdPosting[1024];
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        List<ItemSearchView> views = itemRepository.findAllSearchViews();
+        views.forEach(view -> add(view.getId(), view.getName(), view.getDescription(), view.getAvailable()));
+        refreshNorms();
+        log.info("Векторы вещей для поиска похожих построены, проиндексировано вещей: {}", views.size());
+    }
+
+    public void add(Item item) {
+        add(item.getId(), item.getName(), item.getDescription(), item.getAvailable());
+    }
+
+    public void remove(Long itemId) {
+        lock.writeLock().lock();
+        try {
+            TermVector removed = vectors.remove(itemId);
+            if (removed != null) {
+                for (int term : removed.terms()) {
+                    documentFrequencies[term]--;
+                    IdPosting ids = postings[term];
+                    if (ids != null) {
+                        ids.remove(itemId);
+                        if (ids.isEmpty()) {
+                            postings[term] = null;
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Возвращает до limit id доступных вещей в порядке убывания косинусного сходства с вещью itemId
+    public List<Long> findSimilar(Long itemId, int limit) {
+        lock.readLock().lock();
+        try {
+            TermVector source = vectors.get(itemId);
+            if (source == null) {
+                return List.of();
+            }
+            int itemCount = vectors.size();
+            int[] terms = source.terms();
+            // Номера позиций основ source в порядке возрастания количества вещей с основой
+            int[] order = IntStream.range(0, terms.length)
+                    .boxed()
+                    .sorted(Comparator.comparingInt(i -> documentFrequencies[terms[i]]))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            // Скалярные произведения с вещями, у которых есть общие с source основы
+            Map<Long, Double> products = new HashMap<>();
+            for (int i : order) {
+                int term = terms[i];
+                int frequency = documentFrequencies[term];
+                IdPosting ids = postings[term];
+                if (ids == null || (frequency > COMMON_TERM_MIN_FREQUENCY && frequency > itemCount / COMMON_TERM_SHARE)) {
+                    continue;
+                }
+                double idf = idf(term, itemCount);
+                double sourceWeight = source.frequencies()[i] * idf;
+                ids.forEach(id -> {
+                    // Когда кандидатов набрано MAX_CANDIDATES, основа уточняет только их оценки
+                    if (id != itemId && (products.size() < MAX_CANDIDATES || products.containsKey(id))) {
+                        double weight = vectors.get(id).termFrequency(term) * idf;
+                        products.merge(id, sourceWeight * weight, Double::sum);
+                    }
+                });
+            }
+            // В вершине кучи наименее похожая вещь, она вытесняется первой
+            PriorityQueue<ScoredItem> heap = new PriorityQueue<>(SIMILARITY_ORDER.reversed());
+            products.forEach((id, product) -> {
+                double score = product / (source.norm() * vectors.get(id).norm());
+                heap.offer(new ScoredItem(id, score));
+                if (heap.size() > limit) {
+                    heap.poll();
+                }
+            });
+            List<ScoredItem> result = new ArrayList<>(heap);
+            result.sort(SIMILARITY_ORDER);
+            return result.stream()
+                    .map(ScoredItem::id)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(Long id, String name, String description, boolean available) {
+        lock.writeLock().lock();
+        try {
+            // При обновлении вещи сначала убираем ее старый вектор
+            remove(id);
+            Map<Integer, Integer> counts = new TreeMap<>();
+            for (String stem : ItemTextAnalyzer.stems(name + " " + description)) {
+                counts.merge(termId(stem), 1, Integer::sum);
+            }
+            int[] terms = new int[counts.size()];
+            float[] frequencies = new float[counts.size()];
+            int i = 0;
+            for (Map.Entry<Integer, Integer> entry : counts.entrySet()) {
+                terms[i] = entry.getKey();
+                // Логарифм частоты, чтобы повторы одного слова не перевешивали остальные слова
+                frequencies[i] = (float) (1 + Math.log(entry.getValue()));
+                documentFrequencies[terms[i]]++;
+                if (available) {
+                    if (postings[terms[i]] == null) {
+                        postings[terms[i]] = new IdPosting();
+                    }
+                    postings[terms[i]].add(id);
+                }
+                i++;
+            }
+            vectors.put(id, new TermVector(terms, frequencies, norm(terms, frequencies, vectors.size() + 1)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int termId(String stem) {
+        Integer id = termIds.get(stem);
+        if (id == null) {
+            id = termIds.size();
+            termIds.put(stem, id);
+            if (id == documentFrequencies.length) {
+                documentFrequencies = Arrays.copyOf(documentFrequencies, id * 2);
+                postings = Arrays.copyOf(postings, id * 2);
+            }
+        }
+        return id;
+    }
+
+    private double idf(int term, int itemCount) {
+        return Math.log((double) (itemCount + 1) / (documentFrequencies[term] + 1)) + 1;
+    }
+
+    // Пересчитывает нормы всех векторов по текущим idf
+    private void refreshNorms() {
+        lock.writeLock().lock();
+        try {
+            int itemCount = vectors.size();
+            vectors.replaceAll((id, vector) -> new TermVector(vector.terms(), vector.frequencies(),
+                    norm(vector.terms(), vector.frequencies(), itemCount)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private double norm(int[] terms, float[] frequencies, int itemCount) {
+        double sum = 0;
+        for (int i = 0; i < terms.length; i++) {
+            double weight = frequencies[i] * idf(terms[i], itemCount);
+            sum += weight * weight;
+        }
+        return Math.sqrt(sum);
+    }
+
+    private record TermVector(int[] terms, float[] frequencies, double norm) {
+        float termFrequency(int term) {
+            int index = Arrays.binarySearch(terms, term);
+            return index >= 0 ? frequencies[index] : 0;
+        }
+    }
+
+    private record ScoredItem(Long id, double score) {
+    }
+}
@@ -0,0 +1,149 @@
+package ru.practicum.shareit.item;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Отсортированный индекс названий доступных вещей для подсказок по префиксу.
+// Ключ - часть названия, приведенного ItemTextAnalyzer.normalize, начиная с каждого слова, поэтому "дре" находит
+// и "Дрель", и "Ударная дрель". Подсказки берутся из диапазона ключей, начинающихся с префикса, без просмотра
+// всех названий, и ранжируются по числу доступных вещей с таким названием
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemSuggestIndex {
+    // Отделяет часть названия от полного названия в ключе и меньше любого символа названия
+    private static final char SEPARATOR = '\u0000';
+    // Сначала названия, под которыми доступно больше вещей, при равенстве - по алфавиту
+    private static final Comparator<NameEntry> RANKING = Comparator.<NameEntry>comparingInt(entry -> entry.count)
+            .reversed()
+            .thenComparing(entry -> entry.normalizedName);
+
+    private final ItemRepository itemRepository;
+
+    // Ключ -> название и количество доступных вещей с таким названием, все ключи названия ссылаются на одну запись
+    private final NavigableMap<String, NameEntry> names = new TreeMap<>();
+    private final Map<String, NameEntry> entriesByName = new HashMap<>();
+    private final Map<Long, String> nameByItemId = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        List<ItemSearchView> views = itemRepository.findAllSearchViews();
+        views.forEach(view -> add(view.getId(), view.getName(), view.getAvailable()));
+        log.info("Индекс подсказок названий вещей построен, проиндексировано вещей: {}", nameByItemId.size());
+    }
+
+    public void add(Item item) {
+        add(item.getId(), item.getName(), item.getAvailable());
+    }
+
+    public void remove(Long itemId) {
+        lock.writeLock().lock();
+        try {
+            String name = nameByItemId.remove(itemId);
+            if (name != null) {
+                String normalizedName = normalize(name);
+                NameEntry entry = entriesByName.get(normalizedName);
+                entry.count--;
+                if (entry.count == 0) {
+                    entriesByName.remove(normalizedName);
+                    keys(normalizedName).forEach(names::remove);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Возвращает до limit различных названий, в которых есть слово, начинающееся с prefix.
+    // В куче держатся только limit лучших названий, поэтому память не зависит от числа подходящих ключей
+    public List<String> suggest(String prefix, int limit) {
+        String from = normalize(prefix.strip());
+        PriorityQueue<NameEntry> top = new PriorityQueue<>(limit, RANKING.reversed());
+        lock.readLock().lock();
+        try {
+            for (NameEntry entry : names.subMap(from, true, from + Character.MAX_VALUE, true).values()) {
+                // Одно название встречается под несколькими ключами, если префикс есть в нескольких его словах
+                if (top.contains(entry)) {
+                    continue;
+                }
+                if (top.size() < limit) {
+                    top.add(entry);
+                } else if (RANKING.compare(entry, top.peek()) < 0) {
+                    top.poll();
+                    top.add(entry);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<NameEntry> result = new ArrayList<>(top);
+        result.sort(RANKING);
+        return result.stream()
+                .map(entry -> entry.name)
+                .toList();
+    }
+
+    private void add(Long id, String name, boolean available) {
+        lock.writeLock().lock();
+        try {
+            // При обновлении вещи сначала убираем ее старое название
+            remove(id);
+            if (available) {
+                nameByItemId.put(id, name);
+                String normalizedName = normalize(name);
+                NameEntry entry = entriesByName.computeIfAbsent(normalizedName, k -> new NameEntry(name, k));
+                if (entry.count == 0) {
+                    keys(normalizedName).forEach(key -> names.put(key, entry));
+                }
+                entry.count++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static Set<String> keys(String normalizedName) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (int i = 0; i < normalizedName.length(); i++) {
+            boolean wordStart = i == 0 || !Character.isLetterOrDigit(normalizedName.charAt(i - 1));
+            if (wordStart && Character.isLetterOrDigit(normalizedName.charAt(i))) {
+                keys.add(normalizedName.substring(i) + SEPARATOR + normalizedName);
+            }
+        }
+        return keys;
+    }
+
+    // Название и префикс приводятся к виду поискового индекса, пробелы между словами схлопываются
+    private static String normalize(String text) {
+        return ItemTextAnalyzer.normalize(text).replaceAll("\\s+", " ");
+    }
+
+    private static class NameEntry {
+        private final String name;
+        private final String normalizedName;
+        private int count;
+
+        NameEntry(String name, String normalizedName) {
+            this.name = name;
+            this.normalizedName = normalizedName;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package ru.practicum.shareit.item;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Разбор текста вещей и поисковых запросов на слова и приведение слов к основе.
+// Основа получается отбрасыванием окончания, поэтому "дрель", "дрели" и "дрелью" дают одну основу "дрел".
+// Используется и при индексации названия и описания, и при разборе запроса
+public class ItemTextAnalyzer {
+    // Символ экранирования в шаблонах LIKE
+    public static final char LIKE_ESCAPE = '\\';
+    // Основа короче этой длины не отделяется от окончания, иначе короткие слова теряют смысл
+    private static final int MIN_STEM_LENGTH = 3;
+
+    // Окончания упорядочены от длинных к коротким, отбрасывается самое длинное подходящее
+    private static final List<String> RUSSIAN_ENDINGS = List.of(
+            "иями",
+            "ями", "ами", "ыми", "ими", "ого", "его", "ому", "ему", "ать", "ять", "ить", "еть", "ует", "ешь", "ишь",
+            "ая", "яя", "ое", "ее", "ые", "ие", "ый", "ий", "ой", "ей", "ую", "юю", "ом", "ем", "ым", "им", "ых", "их",
+            "ах", "ях", "ов", "ев", "ам", "ям", "ию", "ью", "ья", "ье", "ьи", "ия", "ии", "ют", "ут", "ет", "ит",
+            "а", "я", "о", "е", "ы", "и", "у", "ю", "ь", "й"
+    );
+    private static final List<String> ENGLISH_ENDINGS = List.of(
+            "ingly", "edly", "ing", "ies", "ied", "ed", "es", "ly", "s", "y", "e"
+    );
+
+    // Приводит текст к виду, в котором он хранится в индексе и сравнивается с запросом
+    public static String normalize(String text) {
+        return text.toLowerCase().replace('ё', 'е');
+    }
+
+    // Возвращает основы слов текста в порядке их следования
+    public static List<String> stems(String text) {
+        List<String> stems = new ArrayList<>();
+        String normalized = normalize(text);
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean letter = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                stems.add(stem(normalized.substring(start, i)));
+                start = -1;
+            }
+        }
+        return stems;
+    }
+
+    // Строит шаблоны для LIKE ... ESCAPE LIKE_ESCAPE: по одному на каждую основу слов запроса,
+    // вещь подходит, если в ее тексте есть все основы в любом порядке, как и в индексе ItemSearchIndex.
+    // Запрос без слов ищется целиком. Символы % и _ из запроса экранируются и не работают как шаблон
+    public static List<String> toLikePatterns(String query) {
+        List<String> stems = stems(query);
+        List<String> parts = stems.isEmpty() ? List.of(normalize(query)) : stems.stream().distinct().toList();
+        return parts.stream()
+                .map(part -> "%" + escapeLike(part) + "%")
+                .toList();
+    }
+
+    private static String escapeLike(String text) {
+        return text.replace(String.valueOf(LIKE_ESCAPE), LIKE_ESCAPE + String.valueOf(LIKE_ESCAPE))
+                .replace("%", LIKE_ESCAPE + "%")
+                .replace("_", LIKE_ESCAPE + "_");
+    }
+
+    static String stem(String word) {
+        List<String> endings = isCyrillic(word) ? RUSSIAN_ENDINGS : ENGLISH_ENDINGS;
+        for (String ending : endings) {
+            int stemLength = word.length() - ending.length();
+            // "class" не должно превращаться в "clas", иначе не совпадет с "classes"
+            boolean doubleS = ending.equals("s") && word.endsWith("ss");
+            if (stemLength >= MIN_STEM_LENGTH && word.endsWith(ending) && !doubleS) {
+                return word.substring(0, stemLength);
+            }
+        }
+        return word;
+    }
+
+    private static boolean isCyrillic(String word) {
+        return word.chars().anyMatch(ch -> Character.UnicodeScript.of(ch) == Character.UnicodeScript.CYRILLIC);
+    }
+}
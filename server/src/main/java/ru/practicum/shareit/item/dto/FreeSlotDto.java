@@ -0,0 +1,16 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Промежуток, в который вещь свободна для бронирования; границы включаются и не касаются бронирований
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class FreeSlotDto {
+    private LocalDateTime start;
+    private LocalDateTime end;
+}
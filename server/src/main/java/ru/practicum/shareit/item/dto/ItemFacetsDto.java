@@ -0,0 +1,18 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+// Количество вещей для каждого значения фильтров поиска.
+// owners содержит владельцев с наибольшим количеством вещей
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class ItemFacetsDto {
+    private Map<Boolean, Long> available;
+    private Map<Boolean, Long> hasRequest;
+    private Map<Long, Long> owners;
+}
@@ -6,6 +6,7 @@ import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.mapper.ItemRequestMapper;
 import ru.practicum.shareit.user.mapper.UserMapper;
 
+import java.time.ZoneOffset;
 import java.util.List;
 
 public class ItemMapper {
@@ -30,6 +31,19 @@ public class ItemMapper {
         return itemOutDto;
     }
 
+    // Даты последнего и следующего бронирований видит только владелец вещи
+    public static ItemOutDto mapToOwnerItemOutDto(Item item) {
+        ItemOutDto itemOutDto = mapToItemOutDto(item);
+        if (item.getLastBookingEnd() != null) {
+            itemOutDto.setLastBooking(item.getLastBookingEnd().withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime());
+        }
+        if (item.getNextBookingStart() != null) {
+            itemOutDto.setNextBooking(item.getNextBookingStart().withZoneSameInstant(ZoneOffset.UTC)
+                    .toLocalDateTime());
+        }
+        return itemOutDto;
+    }
+
     public static Item mapToItem(ItemInDto itemDto) {
         return new Item(
                 null,
@@ -1,13 +1,13 @@
 package ru.practicum.shareit.item.model;
 
 import jakarta.persistence.*;
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import ru.practicum.shareit.request.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 
-@AllArgsConstructor
+import java.time.ZonedDateTime;
+
 @NoArgsConstructor
 @Entity
 @Table(name = "items")
@@ -33,4 +33,21 @@ public class Item {
     @ManyToOne
     @JoinColumn(name = "request_id")
     private ItemRequest request;
+
+    // Окончание последнего завершившегося и начало ближайшего будущего неотклоненных бронирований.
+    // Поля не записываются при сохранении вещи, их пересчитывает ItemBookingDatesUpdater
+    @Column(name = "last_booking_end", insertable = false, updatable = false)
+    private ZonedDateTime lastBookingEnd;
+
+    @Column(name = "next_booking_start", insertable = false, updatable = false)
+    private ZonedDateTime nextBookingStart;
+
+    public Item(Long id, String name, String description, Boolean available, User owner, ItemRequest request) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.available = available;
+        this.owner = owner;
+        this.request = request;
+    }
 }
@@ -0,0 +1,32 @@
+-- Триграммные индексы для поиска вещей по подстроке в режиме shareit.search.mode=database.
+-- Индексы построены по тому же выражению replace(lower(...), 'ё', 'е'), что и условия LIKE
+-- из ItemQueryRepositoryImpl, иначе планировщик не сможет их использовать
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+DROP INDEX IF EXISTS items_name_trgm_idx;
+
+DROP INDEX IF EXISTS items_description_trgm_idx;
+
+CREATE INDEX IF NOT EXISTS items_name_folded_trgm_idx
+    ON items USING GIN (replace(lower(name), 'ё', 'е') gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS items_description_folded_trgm_idx
+    ON items USING GIN (replace(lower(description), 'ё', 'е') gin_trgm_ops);
+
+-- Неотклоненные бронирования одной вещи не могут пересекаться, отрезки [start_date, end_date] включают концы,
+-- как и проверка по расписанию BookingAvailabilityIndex. Ограничение защищает от параллельного создания
+-- пересекающихся бронирований, в том числе разными экземплярами сервера. Для сравнения item_id в GiST нужно расширение btree_gist.
+-- Ограничение создается только если его еще нет: создание блокирует bookings и строит индекс по всей таблице.
+-- Тело DO записано строкой в одинарных кавычках, а не в $$, чтобы Spring не разделял его по ';'
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+DO '
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conrelid = ''bookings''::regclass
+            AND conname = ''bookings_no_overlap'') THEN
+        ALTER TABLE bookings ADD CONSTRAINT bookings_no_overlap
+            EXCLUDE USING GIST (item_id WITH =, tstzrange(start_date, end_date, ''[]'') WITH &&)
+            WHERE (state <> ''REJECTED'');
+    END IF;
+END
+';
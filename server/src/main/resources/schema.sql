@@ -19,10 +19,16 @@ CREATE TABLE IF NOT EXISTS items (
     is_available BOOLEAN NOT NULL,
     owner_id BIGINT NOT NULL,
     request_id BIGINT,
+    last_booking_end TIMESTAMP WITH TIME ZONE,
+    next_booking_start TIMESTAMP WITH TIME ZONE,
     FOREIGN KEY (owner_id) REFERENCES users(id),
     FOREIGN KEY (request_id) REFERENCES requests(id)
 );
 
+-- Колонки, добавленные после создания таблицы items, для уже существующих баз
+ALTER TABLE items ADD COLUMN IF NOT EXISTS last_booking_end TIMESTAMP WITH TIME ZONE;
+ALTER TABLE items ADD COLUMN IF NOT EXISTS next_booking_start TIMESTAMP WITH TIME ZONE;
+
 CREATE TABLE IF NOT EXISTS bookings (
     id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
     start_date TIMESTAMP WITH TIME ZONE NOT NULL,
@@ -34,6 +40,27 @@ CREATE TABLE IF NOT EXISTS bookings (
     FOREIGN KEY (booker_id) REFERENCES users(id)
 );
 
+-- Страницы бронирований автора и бронирований вещей владельца читаются по индексу в порядке убывания начала
+CREATE INDEX IF NOT EXISTS bookings_booker_id_start_date_idx ON bookings (booker_id, start_date DESC);
+CREATE INDEX IF NOT EXISTS bookings_item_id_start_date_idx ON bookings (item_id, start_date DESC);
+
+-- Текущие бронирования автора: у условия start_date < now AND end_date > now два неравенства, и индекс по началу
+-- просматривал бы все прошедшие бронирования. По окончанию просматриваются только незакончившиеся бронирования,
+-- которых у автора немного, а условие на начало проверяется по тому же индексу без чтения строк.
+-- Для владельца тот же путь дает bookings_item_id_end_date_idx после поиска его вещей по items_owner_id_idx
+CREATE INDEX IF NOT EXISTS bookings_booker_id_end_date_idx ON bookings (booker_id, end_date, start_date);
+CREATE INDEX IF NOT EXISTS items_owner_id_idx ON items (owner_id);
+
+-- Поиск неподтвержденных бронирований, время начала которых прошло, для StaleBookingExpiryJob
+CREATE INDEX IF NOT EXISTS bookings_state_start_date_idx ON bookings (state, start_date);
+
+-- Поиск вещей, у бронирований которых наступило начало или окончание, для ItemBookingDatesRefreshJob
+CREATE INDEX IF NOT EXISTS bookings_start_date_idx ON bookings (start_date);
+CREATE INDEX IF NOT EXISTS bookings_end_date_idx ON bookings (end_date);
+
+-- Загрузка незакончившихся бронирований вещи в расписание BookingAvailabilityIndex
+CREATE INDEX IF NOT EXISTS bookings_item_id_end_date_idx ON bookings (item_id, end_date, start_date);
+
 CREATE TABLE IF NOT EXISTS comments (
     id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
     text VARCHAR(1024) NOT NULL,
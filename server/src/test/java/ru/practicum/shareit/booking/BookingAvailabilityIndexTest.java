@@ -0,0 +1,123 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookingAvailabilityIndexTest {
+    @Mock
+    private BookingRepository bookingRepository;
+
+    private BookingAvailabilityIndex bookingAvailabilityIndex;
+    private final AtomicLong nanos = new AtomicLong();
+
+    private final User user = new User(1L, "userName", "email@email.com");
+    private final Item item = new Item(1L, "itemName", "itemDescription", true, user, null);
+    private ZonedDateTime time;
+
+    @BeforeEach
+    void createIndex() {
+        bookingAvailabilityIndex = new BookingAvailabilityIndex(bookingRepository, 100, Duration.ofMinutes(5), nanos::get);
+        time = ZonedDateTime.now(ZoneOffset.UTC);
+    }
+
+    // В базе у вещи два будущих бронирования
+    private void stubSchedule() {
+        when(bookingRepository.findBookedIntervals(eq(1L), eq(BookingState.REJECTED), any(ZonedDateTime.class)))
+                .thenReturn(List.of(
+                        new BookedInterval(1L, time.plusHours(1), time.plusHours(2)),
+                        new BookedInterval(2L, time.plusHours(4), time.plusHours(5))));
+    }
+
+    @Test
+    void isFreeTest_shouldCheckOverlapWithBookingsIncludingEnds() {
+        stubSchedule();
+        assertTrue(bookingAvailabilityIndex.isFree(1L, time.plusMinutes(10), time.plusMinutes(50)));
+        assertTrue(bookingAvailabilityIndex.isFree(1L, time.plusHours(2).plusMinutes(1), time.plusHours(3)));
+        assertFalse(bookingAvailabilityIndex.isFree(1L, time.plusMinutes(10), time.plusHours(1)));
+        assertFalse(bookingAvailabilityIndex.isFree(1L, time.plusHours(2), time.plusHours(3)));
+        assertFalse(bookingAvailabilityIndex.isFree(1L, time.plusMinutes(90), time.plusMinutes(100)));
+        assertFalse(bookingAvailabilityIndex.isFree(1L, time, time.plusHours(10)));
+        // Дата в другой зоне сравнивается по моменту времени
+        assertFalse(bookingAvailabilityIndex.isFree(1L, time.plusMinutes(90).withZoneSameInstant(ZoneId.of("Europe/Moscow")),
+                time.plusMinutes(100).withZoneSameInstant(ZoneId.of("Europe/Moscow"))));
+        // Расписание загружается из базы один раз
+        verify(bookingRepository, times(1)).findBookedIntervals(eq(1L), eq(BookingState.REJECTED),
+                any(ZonedDateTime.class));
+    }
+
+    @Test
+    void addAndRemoveTest_shouldUpdateLoadedSchedule() {
+        stubSchedule();
+        Booking booking = new Booking(3L, time.plusHours(6), time.plusHours(7), item, user, BookingState.WAITING);
+        bookingAvailabilityIndex.add(booking);
+
+        assertFalse(bookingAvailabilityIndex.isFree(1L, time.plusHours(6), time.plusHours(6).plusMinutes(1)));
+
+        // Даты отклоненного бронирования приходят из базы и могут отличаться точностью
+        bookingAvailabilityIndex.remove(new Booking(3L, time.plusHours(6).withNano(0), time.plusHours(7), item, user,
+                BookingState.REJECTED));
+
+        assertTrue(bookingAvailabilityIndex.isFree(1L, time.plusHours(6), time.plusHours(6).plusMinutes(1)));
+    }
+
+    @Test
+    void addTest_whenBookingRejected_shouldNotOccupyTime() {
+        stubSchedule();
+        bookingAvailabilityIndex.add(new Booking(3L, time.plusHours(6), time.plusHours(7), item, user,
+                BookingState.REJECTED));
+
+        assertTrue(bookingAvailabilityIndex.isFree(1L, time.plusHours(6), time.plusHours(7)));
+    }
+
+    @Test
+    void removeTest_whenScheduleNotLoaded_shouldNotLoadIt() {
+        bookingAvailabilityIndex.remove(new Booking(1L, time.plusHours(1), time.plusHours(2), item, user,
+                BookingState.REJECTED));
+
+        verify(bookingRepository, never()).findBookedIntervals(anyLong(), any(), any());
+    }
+
+    @Test
+    void findBookedTest_shouldReturnBookingsOverlappingWindow() {
+        stubSchedule();
+        assertEquals(List.of(1L, 2L), bookingAvailabilityIndex.findBooked(1L, time.plusMinutes(90), time.plusHours(4))
+                .stream()
+                .map(BookedInterval::getBookingId)
+                .toList());
+        assertEquals(List.of(), bookingAvailabilityIndex.findBooked(1L, time.plusMinutes(121), time.plusMinutes(239)));
+    }
+
+    @Test
+    void isFreeTest_whenScheduleExpired_shouldReloadChangesFromOtherInstances() {
+        stubSchedule();
+        assertFalse(bookingAvailabilityIndex.isFree(1L, time.plusHours(1), time.plusHours(2)));
+        // Первое бронирование отклонено на другом экземпляре сервера
+        when(bookingRepository.findBookedIntervals(eq(1L), eq(BookingState.REJECTED), any(ZonedDateTime.class)))
+                .thenReturn(List.of(new BookedInterval(2L, time.plusHours(4), time.plusHours(5))));
+
+        nanos.addAndGet(Duration.ofMinutes(4).toNanos());
+        assertFalse(bookingAvailabilityIndex.isFree(1L, time.plusHours(1), time.plusHours(2)));
+        nanos.addAndGet(Duration.ofMinutes(2).toNanos());
+        assertTrue(bookingAvailabilityIndex.isFree(1L, time.plusHours(1), time.plusHours(2)));
+        verify(bookingRepository, times(2)).findBookedIntervals(eq(1L), eq(BookingState.REJECTED),
+                any(ZonedDateTime.class));
+    }
+}
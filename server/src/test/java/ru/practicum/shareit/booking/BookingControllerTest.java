@@ -6,15 +6,20 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 // Здесь тестируются только успешный сценарий, что при валидном запросе вызывается метод сервиса
@@ -92,7 +97,7 @@ class BookingControllerTest {
                         .header("X-Sharer-User-Id", userId))
                 .andExpect(status().isOk());
 
-        verify(bookingService, times(1)).getAllBookingsByUser(userId, state);
+        verify(bookingService, times(1)).getAllBookingsByUser(userId, state, 0, 10);
     }
 
     @Test
@@ -101,10 +106,39 @@ class BookingControllerTest {
 
         mockMvc.perform(get("/bookings/owner")
                         .param("state", "APPROVED")
+                        .param("from", "20")
+                        .param("size", "5")
                         .header("X-Sharer-User-Id", userId))
                 .andExpect(status().isOk());
 
-        verify(bookingService, times(1)).getAllBookingsByOwner(userId, state);
+        verify(bookingService, times(1)).getAllBookingsByOwner(userId, state, 20, 5);
     }
-}
 
+    @Test
+    void getBookingSummaryByOwnerTest() throws Exception {
+        when(bookingService.getBookingSummaryByOwner(userId))
+                .thenReturn(new BookingStateCounts(1L, 2L, 3L, 4L, 5L, 6L));
+
+        mockMvc.perform(get("/bookings/owner/summary")
+                        .header("X-Sharer-User-Id", userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.waiting").value(1))
+                .andExpect(jsonPath("$.future").value(6));
+    }
+
+    @Test
+    void updateBookingStatesTest() throws Exception {
+        List<BookingDecisionDto> decisions = List.of(new BookingDecisionDto(2L, false), new BookingDecisionDto(1L, true));
+        Map<Long, Boolean> expectedDecisions = new LinkedHashMap<>();
+        expectedDecisions.put(2L, false);
+        expectedDecisions.put(1L, true);
+
+        mockMvc.perform(patch("/bookings/batch")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(decisions))
+                        .header("X-Sharer-User-Id", userId))
+                .andExpect(status().isOk());
+
+        verify(bookingService, times(1)).updateBookingStates(userId, expectedDecisions);
+    }
+}
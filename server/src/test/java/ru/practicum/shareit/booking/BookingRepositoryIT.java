@@ -1,26 +1,80 @@
 package ru.practicum.shareit.booking;
 
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.OffsetPageRequest;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.ItemTextAnalyzer;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.ItemRequest;
 import ru.practicum.shareit.request.ItemRequestRepository;
 import ru.practicum.shareit.user.UserRepository;
 import ru.practicum.shareit.user.model.User;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
 class BookingRepositoryIT {
+    private static final PageRequest PAGE = PageRequest.of(0, 10);
+
+    // Запоминает SQL, отправленный Hibernate в базу
+    static class SqlCapture implements StatementInspector {
+        private final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+
+        void clear() {
+            statements.clear();
+        }
+
+        String last() {
+            return statements.getLast();
+        }
+    }
+
+    @TestConfiguration
+    static class SqlCaptureConfig {
+        @Bean
+        SqlCapture sqlCapture() {
+            return new SqlCapture();
+        }
+
+        @Bean
+        HibernatePropertiesCustomizer sqlCaptureCustomizer(SqlCapture sqlCapture) {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, sqlCapture);
+        }
+    }
+
     @Autowired
     private ItemRepository itemRepository;
     @Autowired
@@ -29,6 +83,10 @@ class BookingRepositoryIT {
     private ItemRequestRepository itemRequestRepository;
     @Autowired
     private BookingRepository bookingRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private SqlCapture sqlCapture;
 
     private User petr;
     private User ivan;
@@ -114,32 +172,72 @@ class BookingRepositoryIT {
     }
 
     @Test
-    void findAllByBookerIdOrderByStartDesc() {
+    void findBookingsByBooker_whenAll() {
         bookingApple = bookingRepository.findById(bookingApple.getId())
                 .orElseThrow(() -> new NotFoundException("Бронирование с таким id не найдено"));
         bookingTable = bookingRepository.findById(bookingTable.getId())
                 .orElseThrow(() -> new NotFoundException("Бронирование с таким id не найдено"));
         List<Booking> expectedBookings = List.of(bookingTable, bookingApple);
 
-        List<Booking> actualBookings = bookingRepository.findAllByBookerIdOrderByStartDesc(petr.getId());
+        List<Booking> actualBookings = bookingRepository.findBookings(BookingRole.BOOKER, petr.getId(),
+                BookingState.ALL, time, PAGE);
 
         assertEquals(expectedBookings, actualBookings);
     }
 
     @Test
-    void findAllByBookerIdAndStateOrderByStartDesc() {
+    void findBookingsByBooker_whenAllAndPageRequested_shouldReturnOnlyPage() {
+        // Бронирования с одинаковым началом идут по убыванию id
+        Booking sameStart = bookingRepository.save(new Booking(null, bookingTable.getStart(), bookingTable.getEnd(),
+                ball, petr, BookingState.REJECTED));
+        PageRequest firstPage = PageRequest.of(0, 2);
+        PageRequest secondPage = PageRequest.of(1, 2);
+
+        List<Long> firstIds = bookingRepository.findBookings(BookingRole.BOOKER, petr.getId(),
+                BookingState.ALL, time, firstPage).stream()
+                .map(Booking::getId)
+                .toList();
+        List<Long> secondIds = bookingRepository.findBookings(BookingRole.BOOKER, petr.getId(),
+                BookingState.ALL, time, secondPage).stream()
+                .map(Booking::getId)
+                .toList();
+
+        assertEquals(List.of(sameStart.getId(), bookingTable.getId()), firstIds);
+        assertEquals(List.of(bookingApple.getId()), secondIds);
+    }
+
+    @Test
+    void findBookings_shouldLoadPageWithRelatedEntitiesInOneStatement() {
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        entityManager.clear();
+        statistics.clear();
+
+        List<Booking> bookings = bookingRepository.findBookings(BookingRole.OWNER, ivan.getId(),
+                BookingState.ALL, time, PAGE);
+        // Связанные сущности уже загружены и не требуют запросов
+        bookings.forEach(booking -> booking.getItem().getOwner().getName());
+        bookings.forEach(booking -> booking.getBooker().getName());
+
+        assertEquals(3, bookings.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    void findBookingsByBooker_whenState() {
         bookingApple = bookingRepository.findById(bookingApple.getId())
                 .orElseThrow(() -> new NotFoundException("Бронирование с таким id не найдено"));
         List<Booking> expectedBookings = List.of(bookingApple);
 
-        List<Booking> actualBookings = bookingRepository.findAllByBookerIdAndStateOrderByStartDesc(
-                petr.getId(), bookingApple.getState());
+        List<Booking> actualBookings = bookingRepository.findBookings(BookingRole.BOOKER, petr.getId(),
+                bookingApple.getState(), time, PAGE);
 
         assertEquals(expectedBookings, actualBookings);
     }
 
     @Test
-    void findAllByBookerIdAndEndBeforeOrderByStartDesc() {
+    void findBookingsByBooker_whenPast() {
         // Для PAST
         bookingApple.setStart(time.minusHours(2));
         bookingApple.setEnd(time.minusHours(3));
@@ -162,13 +260,13 @@ class BookingRepositoryIT {
         List<Booking> expectedBookings = List.of(bookingApple, bookingTable);
 
         List<Booking> actualBookings = bookingRepository
-                .findAllByBookerIdAndEndBeforeOrderByStartDesc(petr.getId(), time);
+                .findBookings(BookingRole.BOOKER, petr.getId(), BookingState.PAST, time, PAGE);
 
         assertEquals(expectedBookings, actualBookings);
     }
 
     @Test
-    void findAllByBookerIdAndStartBeforeAndEndAfterOrderByStartDesc() {
+    void findBookingsByBooker_whenCurrent() {
         // Для CURRENT
         bookingApple.setStart(time.minusHours(2));
         bookingBall.setStart(time.minusHours(4));
@@ -187,13 +285,47 @@ class BookingRepositoryIT {
         List<Booking> expectedBookings = List.of(bookingApple, bookingTable);
 
         List<Booking> actualBookings = bookingRepository
-                .findAllByBookerIdAndStartBeforeAndEndAfterOrderByStartDesc(petr.getId(), time, time);
+                .findBookings(BookingRole.BOOKER, petr.getId(), BookingState.CURRENT, time, PAGE);
 
         assertEquals(expectedBookings, actualBookings);
     }
 
     @Test
-    void findAllByBookerIdAndStartAfterOrderByStartDesc() {
+    void findBookingsByBooker_whenOffsetNotMultipleOfSize_shouldStartFromOffset() {
+        bookingRepository.save(new Booking(null, bookingTable.getStart(), bookingTable.getEnd(),
+                ball, petr, BookingState.REJECTED));
+
+        // Со смещением 1 при размере 2 возвращаются второе и третье бронирования, а не первая страница
+        List<Long> actualIds = bookingRepository.findBookings(BookingRole.BOOKER, petr.getId(),
+                BookingState.ALL, time, OffsetPageRequest.of(1, 2)).stream()
+                .map(Booking::getId)
+                .toList();
+
+        assertEquals(List.of(bookingTable.getId(), bookingApple.getId()), actualIds);
+    }
+
+    @Test
+    void findBookingsByBooker_whenCurrent_shouldScanOnlyUnfinishedBookingsByIndex() {
+        // План строится для SQL, который Hibernate сгенерировал для findBookings
+        sqlCapture.clear();
+        bookingRepository.findBookings(BookingRole.BOOKER, petr.getId(), BookingState.CURRENT, time, PAGE);
+        String sql = sqlCapture.last();
+
+        // Для EXPLAIN в H2 значения параметров не нужны
+        String plan = entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql);
+                 ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getString(1);
+            }
+        });
+
+        assertFalse(plan.contains("BOOKINGS_BOOKER_ID_START_DATE_IDX"), plan);
+        assertTrue(plan.contains("BOOKINGS_BOOKER_ID_END_DATE_IDX"), plan);
+    }
+
+    @Test
+    void findBookingsByBooker_whenFuture() {
         bookingApple = bookingRepository.findById(bookingApple.getId())
                 .orElseThrow(() -> new NotFoundException("Бронирование с таким id не найдено"));
         bookingTable = bookingRepository.findById(bookingTable.getId())
@@ -201,13 +333,13 @@ class BookingRepositoryIT {
         List<Booking> expectedBookings = List.of(bookingTable, bookingApple);
 
         List<Booking> actualBookings = bookingRepository
-                .findAllByBookerIdAndStartAfterOrderByStartDesc(petr.getId(), time);
+                .findBookings(BookingRole.BOOKER, petr.getId(), BookingState.FUTURE, time, PAGE);
 
         assertEquals(expectedBookings, actualBookings);
     }
 
     @Test
-    void findAllByItemOwnerIdOrderByStartDesc() {
+    void findBookingsByOwner_whenAll() {
         bookingApple = bookingRepository.findById(bookingApple.getId())
                 .orElseThrow(() -> new NotFoundException("Бронирование с таким id не найдено"));
         bookingTable = bookingRepository.findById(bookingTable.getId())
@@ -216,26 +348,27 @@ class BookingRepositoryIT {
                 .orElseThrow(() -> new NotFoundException("Бронирование с таким id не найдено"));
         List<Booking> expectedBookings = List.of(bookingTableIvan, bookingTable, bookingApple);
 
-        List<Booking> actualBookings = bookingRepository.findAllByItemOwnerIdOrderByStartDesc(
-                bookingApple.getItem().getOwner().getId());
+        List<Booking> actualBookings = bookingRepository.findBookings(BookingRole.OWNER,
+                bookingApple.getItem().getOwner().getId(),
+                BookingState.ALL, time, PAGE);
 
         assertEquals(expectedBookings, actualBookings);
     }
 
     @Test
-    void findAllByItemOwnerIdAndStateOrderByStartDesc() {
+    void findBookingsByOwner_whenState() {
         bookingApple = bookingRepository.findById(bookingApple.getId())
                 .orElseThrow(() -> new NotFoundException("Бронирование с таким id не найдено"));
         List<Booking> expectedBookings = List.of(bookingApple);
 
         List<Booking> actualBookings = bookingRepository
-                .findAllByItemOwnerIdAndStateOrderByStartDesc(ivan.getId(), bookingApple.getState());
+                .findBookings(BookingRole.OWNER, ivan.getId(), bookingApple.getState(), time, PAGE);
 
         assertEquals(expectedBookings, actualBookings);
     }
 
     @Test
-    void findAllByItemOwnerIdAndEndBeforeOrderByStartDesc() {
+    void findBookingsByOwner_whenPast() {
         // Для PAST
         bookingApple.setStart(time.minusHours(9));
         bookingApple.setEnd(time.minusHours(8));
@@ -260,13 +393,14 @@ class BookingRepositoryIT {
         List<Booking> expectedBookings = List.of(bookingTableIvan, bookingTable, bookingApple);
 
         List<Booking> actualBookings = bookingRepository
-                .findAllByItemOwnerIdAndEndBeforeOrderByStartDesc(bookingApple.getItem().getOwner().getId(), time);
+                .findBookings(BookingRole.OWNER, bookingApple.getItem().getOwner().getId(),
+                        BookingState.PAST, time, PAGE);
 
         assertEquals(expectedBookings, actualBookings);
     }
 
     @Test
-    void findAllByItemOwnerIdAndStartBeforeAndEndAfterOrderByStartDesc() {
+    void findBookingsByOwner_whenCurrent() {
         // Для CURRENT
         bookingApple.setStart(time.minusHours(8));
         bookingBall.setStart(time.minusHours(6));
@@ -287,14 +421,14 @@ class BookingRepositoryIT {
         List<Booking> expectedBookings = List.of(bookingTableIvan, bookingTable, bookingApple);
 
         List<Booking> actualBookings = bookingRepository
-                .findAllByItemOwnerIdAndStartBeforeAndEndAfterOrderByStartDesc(
-                        bookingApple.getItem().getOwner().getId(), time, time);
+                .findBookings(BookingRole.OWNER, bookingApple.getItem().getOwner().getId(),
+                        BookingState.CURRENT, time, PAGE);
 
         assertEquals(expectedBookings, actualBookings);
     }
 
     @Test
-    void findAllByItemOwnerIdAndStartAfterOrderByStartDesc() {
+    void findBookingsByOwner_whenFuture() {
         bookingApple = bookingRepository.findById(bookingApple.getId())
                 .orElseThrow(() -> new NotFoundException("Бронирование с таким id не найдено"));
         bookingTable = bookingRepository.findById(bookingTable.getId())
@@ -304,23 +438,155 @@ class BookingRepositoryIT {
         List<Booking> expectedBookings = List.of(bookingTableIvan, bookingTable, bookingApple);
 
         List<Booking> actualBookings = bookingRepository
-                .findAllByItemOwnerIdAndStartAfterOrderByStartDesc(
-                        bookingApple.getItem().getOwner().getId(), time);
+                .findBookings(BookingRole.OWNER, bookingApple.getItem().getOwner().getId(),
+                        BookingState.FUTURE, time, PAGE);
 
         assertEquals(expectedBookings, actualBookings);
     }
 
     @Test
-    void findAllByItemIdOrderByStartDesc() {
-        bookingTable = bookingRepository.findById(bookingTable.getId())
-                .orElseThrow(() -> new NotFoundException("Бронирование с таким id не найдено"));
-        bookingTableIvan = bookingRepository.findById(bookingTableIvan.getId())
-                .orElseThrow(() -> new NotFoundException("Бронирование с таким id не найдено"));
-        List<Booking> expectedBookings = List.of(bookingTableIvan, bookingTable);
+    void countBookingStates() {
+        BookingStateCounts ownerCounts = bookingRepository.countBookingStates(BookingRole.OWNER, ivan.getId(), time);
+        BookingStateCounts bookerCounts = bookingRepository.countBookingStates(BookingRole.BOOKER, badUser.getId(), time);
+        BookingStateCounts laterCounts = bookingRepository.countBookingStates(BookingRole.OWNER, petr.getId(),
+                time.plusDays(1));
+
+        assertEquals(new BookingStateCounts(1L, 1L, 1L, 0L, 0L, 3L), ownerCounts);
+        assertEquals(new BookingStateCounts(0L, 3L, 0L, 1L, 1L, 1L), bookerCounts);
+        // Единственное бронирование вещи petr к этому моменту завершено
+        assertEquals(new BookingStateCounts(0L, 1L, 0L, 1L, 0L, 0L), laterCounts);
+    }
 
-        List<Booking> actualBookings = bookingRepository
-                .findAllByItemIdOrderByStartDesc(bookingTable.getItem().getId());
+    @Test
+    void findBookedIntervals() {
+        // Завершенное и отклоненное бронирования table не попадают в расписание
+        bookingRepository.save(new Booking(null, time.minusHours(3), time.minusHours(2),
+                table, petr, BookingState.APPROVED));
+        Booking current = bookingRepository.save(new Booking(null, time.minusHours(1), time.plusHours(1),
+                table, petr, BookingState.APPROVED));
+
+        List<BookedInterval> intervals = bookingRepository.findBookedIntervals(table.getId(),
+                BookingState.REJECTED, time);
+
+        assertEquals(List.of(current.getId(), bookingTable.getId()), intervals.stream()
+                .map(BookedInterval::getBookingId)
+                .toList());
+        assertSameInstant(bookingTable.getStart(), intervals.get(1).getStart());
+        assertSameInstant(bookingTable.getEnd(), intervals.get(1).getEnd());
+    }
 
-        assertEquals(expectedBookings, actualBookings);
+    @Test
+    void findBookedItemIds() {
+        // Бронирование ball пересекается с первым периодом, у table во втором только отклоненное бронирование
+        List<Long> bookedIds = bookingRepository.findBookedItemIds(List.of(ball.getId(), table.getId()),
+                BookingState.REJECTED, time.plusHours(4).plusMinutes(30), time.plusHours(5).plusMinutes(30));
+        List<Long> rejectedOnlyIds = bookingRepository.findBookedItemIds(List.of(ball.getId(), table.getId()),
+                BookingState.REJECTED, time.plusHours(7).plusMinutes(30), time.plusHours(8).plusMinutes(30));
+
+        assertEquals(List.of(ball.getId()), bookedIds);
+        assertEquals(List.of(), rejectedOnlyIds);
+    }
+
+    @Test
+    void findAvailableItemsByTextFreeBetween() {
+        // ball занят в период, бронирование table начинается после его конца
+        List<Item> freeItems = itemRepository.findAvailableItemsByTextFreeBetween(ItemTextAnalyzer.toLikePatterns("text"), BookingState.REJECTED,
+                time.plusHours(4).plusMinutes(30), time.plusHours(5).plusMinutes(30), PageRequest.of(0, 10));
+        List<Item> freeItemsRanked = itemRepository.findAvailableItemsByTextFreeBetweenRanked(ItemTextAnalyzer.toLikePatterns("text"),
+                BookingState.REJECTED, time.plusHours(8), time.plusHours(9), PageRequest.of(0, 10));
+
+        assertEquals(List.of(table.getId()), freeItems.stream().map(Item::getId).toList());
+        // Отклоненное бронирование table не занимает вещь, ball с текстом в названии идет первым
+        assertEquals(List.of(ball.getId(), table.getId()), freeItemsRanked.stream().map(Item::getId).toList());
+    }
+
+    @Test
+    void findExpiredBookingsAndUpdateStateByIdIn() {
+        // Два неподтвержденных бронирования, время начала которых прошло, bookingTable еще не началось
+        Booking older = bookingRepository.save(new Booking(null, time.minusHours(5), time.plusHours(1),
+                apple, petr, BookingState.WAITING));
+        Booking newer = bookingRepository.save(new Booking(null, time.minusHours(1), time.plusHours(1),
+                table, ivan, BookingState.WAITING));
+
+        List<ExpiredBooking> firstBatch = bookingRepository.findExpiredBookings(BookingState.WAITING, time,
+                Limit.of(1));
+        List<ExpiredBooking> allExpired = bookingRepository.findExpiredBookings(BookingState.WAITING, time,
+                Limit.of(10));
+        // Подтвержденное бронирование не отклоняется, даже если его id попал в пачку
+        int updated = bookingRepository.updateStateByIdIn(List.of(older.getId(), newer.getId(),
+                badBookingPast.getId()), BookingState.WAITING, BookingState.REJECTED);
+        entityManager.clear();
+
+        assertEquals(List.of(new ExpiredBooking(older.getId(), apple.getId())), firstBatch);
+        assertEquals(List.of(new ExpiredBooking(older.getId(), apple.getId()),
+                new ExpiredBooking(newer.getId(), table.getId())), allExpired);
+        assertEquals(2, updated);
+        assertEquals(BookingState.REJECTED, bookingRepository.findById(older.getId()).orElseThrow().getState());
+        assertEquals(BookingState.REJECTED, bookingRepository.findById(newer.getId()).orElseThrow().getState());
+        assertEquals(BookingState.WAITING, bookingRepository.findById(bookingTable.getId()).orElseThrow().getState());
+        assertEquals(BookingState.APPROVED,
+                bookingRepository.findById(badBookingPast.getId()).orElseThrow().getState());
+        assertEquals(List.of(), bookingRepository.findExpiredBookings(BookingState.WAITING, time, Limit.of(10)));
+        assertEquals(List.of(older.getId(), newer.getId()), bookingRepository.findIdsByIdInAndState(
+                List.of(older.getId(), newer.getId(), badBookingPast.getId()), BookingState.REJECTED).stream()
+                .sorted()
+                .toList());
+    }
+
+    @Test
+    void updateBookingDates() {
+        // Для table одно завершенное бронирование, позже него закончилось отклоненное, и два будущих
+        bookingTable.setStart(time.minusHours(3));
+        bookingTable.setEnd(time.minusHours(2));
+        bookingRepository.save(bookingTable);
+        bookingRepository.save(new Booking(null, time.minusHours(6), time.minusHours(5),
+                table, petr, BookingState.APPROVED));
+        bookingRepository.save(new Booking(null, time.minusHours(2), time.minusHours(1),
+                table, ivan, BookingState.REJECTED));
+        bookingRepository.save(new Booking(null, time.plusHours(4), time.plusHours(5),
+                table, petr, BookingState.APPROVED));
+
+        int updated = itemRepository.updateBookingDates(List.of(apple.getId(), table.getId()),
+                BookingState.REJECTED, time);
+        entityManager.clear();
+
+        assertEquals(2, updated);
+        Item actualApple = itemRepository.findById(apple.getId()).orElseThrow();
+        Item actualTable = itemRepository.findById(table.getId()).orElseThrow();
+        assertNull(actualApple.getLastBookingEnd());
+        assertSameInstant(bookingApple.getStart(), actualApple.getNextBookingStart());
+        assertSameInstant(time.minusHours(2), actualTable.getLastBookingEnd());
+        assertSameInstant(time.plusHours(4), actualTable.getNextBookingStart());
+        // Вещи, которых нет в списке, не пересчитываются
+        assertNull(itemRepository.findById(ball.getId()).orElseThrow().getNextBookingStart());
+
+        itemRepository.updateBookingDatesByIdBetween(0L, itemRepository.findMaxId(), BookingState.REJECTED, time);
+        entityManager.clear();
+
+        assertSameInstant(bookingBall.getStart(), itemRepository.findById(ball.getId()).orElseThrow()
+                .getNextBookingStart());
+    }
+
+    @Test
+    void findItemIdsWithBookingDatesBetween() {
+        // В период попадают начало и окончание бронирований apple и badItem и начало бронирования ball,
+        // отклоненное бронирование table не учитывается
+        bookingTableIvan.setStart(time.plusHours(3));
+        bookingRepository.save(bookingTableIvan);
+
+        List<Long> itemIds = bookingRepository.findItemIdsWithBookingDatesBetween(BookingState.REJECTED,
+                time.plusHours(1).plusMinutes(30), time.plusHours(4).plusMinutes(30));
+
+        assertEquals(List.of(apple.getId(), ball.getId(), badItem.getId()), itemIds.stream().sorted().toList());
+    }
+
+    private static void assertSameInstant(ZonedDateTime expected, ZonedDateTime actual) {
+        if (expected == null) {
+            assertNull(actual);
+        } else {
+            // База хранит время с точностью до микросекунд
+            assertEquals(expected.toInstant().truncatedTo(ChronoUnit.MILLIS),
+                    actual.toInstant().truncatedTo(ChronoUnit.MILLIS));
+        }
     }
-}
\ No newline at end of file
+}
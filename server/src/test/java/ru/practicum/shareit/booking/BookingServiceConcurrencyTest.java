@@ -0,0 +1,138 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+// Параллельные бронирования через BookingServiceImpl с настоящими расписанием вещей и блокировками
+@ExtendWith(MockitoExtension.class)
+class BookingServiceConcurrencyTest {
+    private static final int THREADS = 8;
+
+    @Mock
+    private ItemRepository itemRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private BookingRepository bookingRepository;
+    @Mock
+    private ItemBookingDatesUpdater itemBookingDatesUpdater;
+
+    private BookingServiceImpl bookingService;
+    private ExecutorService executor;
+    private final AtomicLong bookingIds = new AtomicLong();
+    private final ZonedDateTime start = ZonedDateTime.now(ZoneOffset.UTC).plusDays(1);
+
+    @BeforeEach
+    void createService() {
+        BookingAvailabilityIndex availabilityIndex = new BookingAvailabilityIndex(bookingRepository, 1000, Duration.ofMinutes(5));
+        bookingService = new BookingServiceImpl(bookingRepository, userRepository, itemRepository,
+                availabilityIndex, new BookingItemLocks(64), itemBookingDatesUpdater);
+        executor = Executors.newFixedThreadPool(THREADS);
+        User user = new User(1L, "userName", "email@email.com");
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(itemRepository.findById(anyLong())).thenAnswer(invocation ->
+                Optional.of(new Item(invocation.getArgument(0), "itemName", "itemDescription", true, user, null)));
+        when(bookingRepository.findBookedIntervals(anyLong(), any(), any())).thenReturn(List.of());
+    }
+
+    @Test
+    void createBookingTest_whenManyThreadsBookSameTime_shouldCreateOnlyOneBooking() throws Exception {
+        // Пауза при сохранении расширяет окно между проверкой и записью, в которое без блокировки влезли бы другие потоки
+        when(bookingRepository.save(any())).thenAnswer(invocation -> {
+            Thread.sleep(5);
+            return withId(invocation.getArgument(0));
+        });
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        runConcurrently(THREADS * 4, i -> {
+            try {
+                // Все бронирования одной вещи и попарно пересекаются
+                bookingService.createBooking(1L, 1L, new Booking(null, start.plusMinutes(i),
+                        start.plusHours(1).plusMinutes(i), null, null, null));
+                created.incrementAndGet();
+            } catch (BadRequestException e) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        assertEquals(1, created.get());
+        assertEquals(THREADS * 4 - 1, rejected.get());
+    }
+
+    @Test
+    void createBookingTest_whenThreadsBookDifferentItems_shouldNotWaitForEachOther() throws Exception {
+        // Сохранение завершается, только когда в нем одновременно находятся все потоки.
+        // Если бы бронирования разных вещей выполнялись по очереди, барьер не дождался бы потоков
+        CyclicBarrier allSaving = new CyclicBarrier(THREADS);
+        when(bookingRepository.save(any())).thenAnswer(invocation -> {
+            allSaving.await(5, TimeUnit.SECONDS);
+            return withId(invocation.getArgument(0));
+        });
+
+        runConcurrently(THREADS, i -> bookingService.createBooking(1L, i + 1L,
+                new Booking(null, start, start.plusHours(1), null, null, null)));
+
+        assertEquals(THREADS, bookingIds.get());
+    }
+
+    private Booking withId(Booking booking) {
+        booking.setId(bookingIds.incrementAndGet());
+        return booking;
+    }
+
+    // Запускает tasks задач одновременно и ждет их завершения, исключения задач пробрасываются в тест
+    private void runConcurrently(int tasks, TaskBody body) throws Exception {
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < tasks; i++) {
+            int index = i;
+            futures.add(executor.submit(() -> {
+                startSignal.await();
+                body.run(index);
+                return null;
+            }));
+        }
+        startSignal.countDown();
+        try {
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface TaskBody {
+        void run(int index) throws Exception;
+    }
+}
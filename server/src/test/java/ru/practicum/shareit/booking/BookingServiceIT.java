@@ -6,12 +6,16 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.item.ItemService;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -21,6 +25,8 @@ public class BookingServiceIT {
     @Autowired
     private BookingService bookingService;
     @Autowired
+    private ItemService itemService;
+    @Autowired
     private EntityManager entityManager;
 
     private User petr;
@@ -51,4 +57,48 @@ public class BookingServiceIT {
 
         assertEquals(bookingApple, actualBooking);
     }
+
+    @Test
+    void updateBookingStatesTest_shouldApplyAllDecisions() {
+        User ivan = new User(null, "ivan", "ivan@email.com");
+        entityManager.persist(ivan);
+        Booking first = new Booking(null, time.plusHours(4), time.plusHours(5), apple, ivan, BookingState.WAITING);
+        Booking second = new Booking(null, time.plusHours(6), time.plusHours(7), apple, ivan, BookingState.WAITING);
+        entityManager.persist(first);
+        entityManager.persist(second);
+        entityManager.flush();
+        entityManager.clear();
+        Map<Long, Boolean> decisions = new LinkedHashMap<>();
+        decisions.put(second.getId(), false);
+        decisions.put(first.getId(), true);
+
+        List<Booking> updated = bookingService.updateBookingStates(petr.getId(), decisions);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(List.of(second.getId(), first.getId()), updated.stream().map(Booking::getId).toList());
+        assertEquals(BookingState.REJECTED, entityManager.find(Booking.class, second.getId()).getState());
+        assertEquals(BookingState.APPROVED, entityManager.find(Booking.class, first.getId()).getState());
+    }
+
+    @Test
+    void createAndRejectBookingTest_shouldUpdateItemBookingDates() {
+        User ivan = new User(null, "ivan", "ivan@email.com");
+        entityManager.persist(ivan);
+        entityManager.flush();
+
+        Booking created = bookingService.createBooking(ivan.getId(), apple.getId(),
+                new Booking(null, time.plusMinutes(30), time.plusHours(1), null, null, null));
+        entityManager.clear();
+
+        assertEquals(time.plusMinutes(30).toLocalDateTime(),
+                itemService.getItemsByUserId(petr.getId(), null, 10).getFirst().getNextBooking());
+
+        bookingService.updateBookingState(petr.getId(), created.getId(), false);
+        entityManager.clear();
+
+        // Следующим снова становится бронирование из addBookingsInDataBase
+        assertEquals(time.plusHours(2).toLocalDateTime(),
+                itemService.getItemsByUserId(petr.getId(), null, 10).getFirst().getNextBooking());
+    }
 }
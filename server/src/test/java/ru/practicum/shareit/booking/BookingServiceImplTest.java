@@ -4,7 +4,13 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.OffsetPageRequest;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.DataAccessException;
 import ru.practicum.shareit.exception.NotFoundException;
@@ -13,10 +19,14 @@ import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.UserRepository;
 import ru.practicum.shareit.user.model.User;
 
+import java.sql.SQLException;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -30,10 +40,18 @@ class BookingServiceImplTest {
     private UserRepository userRepository;
     @Mock
     private BookingRepository bookingRepository;
+    @Mock
+    private BookingAvailabilityIndex bookingAvailabilityIndex;
+    @Mock
+    private ItemBookingDatesUpdater itemBookingDatesUpdater;
+    @Spy
+    private BookingItemLocks bookingItemLocks = new BookingItemLocks(4);
 
     @InjectMocks
     private BookingServiceImpl bookingService;
 
+    private static final Pageable PAGE = OffsetPageRequest.of(0, 10);
+
     @Test
     void createBookingTest_whenValidBooking_shouldCreateBooking() {
         long userId = 1L;
@@ -45,13 +63,15 @@ class BookingServiceImplTest {
         Booking expectedBooking = new Booking(1L, time.plusMinutes(2), time.plusMinutes(3), item, user, BookingState.WAITING);
         when(userRepository.findById(userId)).thenReturn(Optional.of(user));
         when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
-        when(bookingRepository.findAllByItemIdOrderByStartDesc(itemId)).thenReturn(List.of());
+        when(bookingAvailabilityIndex.isFree(itemId, booking.getStart(), booking.getEnd())).thenReturn(true);
         when(bookingRepository.save(expectedBooking)).thenReturn(expectedBooking);
 
         Booking actualBooking = bookingService.createBooking(userId, itemId, booking);
 
         assertEquals(expectedBooking, actualBooking);
         verify(bookingRepository, times(1)).save(expectedBooking);
+        verify(bookingAvailabilityIndex, times(1)).add(expectedBooking);
+        verify(itemBookingDatesUpdater, times(1)).update(List.of(itemId));
     }
 
     @Test
@@ -62,15 +82,51 @@ class BookingServiceImplTest {
         Item item = new Item(1L, "itemName", "itemDescription", true, user, null);
         ZonedDateTime time = ZonedDateTime.now(ZoneOffset.UTC);
         Booking booking = new Booking(1L, time.plusMinutes(2), time.plusMinutes(3), null, null, null);
-        Booking booking2 = new Booking(2L, time.plusMinutes(1), time.plusMinutes(3), null, null, null);
         when(userRepository.findById(userId)).thenReturn(Optional.of(user));
         when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
-        when(bookingRepository.findAllByItemIdOrderByStartDesc(itemId)).thenReturn(List.of(booking2));
+        when(bookingAvailabilityIndex.isFree(itemId, booking.getStart(), booking.getEnd())).thenReturn(false);
 
         assertThrows(BadRequestException.class, () -> bookingService.createBooking(userId, itemId, booking));
         verify(bookingRepository, never()).save(any(Booking.class));
     }
 
+    @Test
+    void createBookingTest_whenConstraintRejectsOverlap_shouldThrowBadRequestException() {
+        long userId = 1L;
+        long itemId = 1L;
+        User user = new User(1L, "userName1", "email1@email.com");
+        Item item = new Item(1L, "itemName", "itemDescription", true, user, null);
+        ZonedDateTime time = ZonedDateTime.now(ZoneOffset.UTC);
+        Booking booking = new Booking(1L, time.plusMinutes(2), time.plusMinutes(3), null, null, null);
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
+        when(bookingAvailabilityIndex.isFree(itemId, booking.getStart(), booking.getEnd())).thenReturn(true);
+        when(bookingRepository.save(booking)).thenThrow(new DataIntegrityViolationException("could not execute statement",
+                new SQLException("conflicting key value violates exclusion constraint \"bookings_no_overlap\"")));
+
+        assertThrows(BadRequestException.class, () -> bookingService.createBooking(userId, itemId, booking));
+        verify(bookingAvailabilityIndex, never()).add(any(Booking.class));
+    }
+
+    @Test
+    void createBookingTest_whenOtherIntegrityViolation_shouldRethrow() {
+        long userId = 1L;
+        long itemId = 1L;
+        User user = new User(1L, "userName1", "email1@email.com");
+        Item item = new Item(1L, "itemName", "itemDescription", true, user, null);
+        ZonedDateTime time = ZonedDateTime.now(ZoneOffset.UTC);
+        Booking booking = new Booking(1L, time.plusMinutes(2), time.plusMinutes(3), null, null, null);
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
+        when(bookingAvailabilityIndex.isFree(itemId, booking.getStart(), booking.getEnd())).thenReturn(true);
+        when(bookingRepository.save(booking)).thenThrow(new DataIntegrityViolationException("could not execute statement",
+                new SQLException("null value in column \"item_id\" violates not-null constraint")));
+
+        // Нарушение другого ограничения не выдается клиенту за пересечение бронирований
+        assertThrows(DataIntegrityViolationException.class, () -> bookingService.createBooking(userId, itemId, booking));
+        verify(bookingAvailabilityIndex, never()).add(any(Booking.class));
+    }
+
     @Test
     void createBookingTest_whenItemNotAvailable_shouldThrowBadRequestException() {
         long userId = 1L;
@@ -126,12 +182,14 @@ class BookingServiceImplTest {
                 item, booker, BookingState.APPROVED);
         when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
         when(userRepository.findById(userId)).thenReturn(Optional.of(booker));
-        when(bookingRepository.save(expectedBooking)).thenReturn(expectedBooking);
+        when(bookingRepository.updateStateByIdIn(List.of(bookingId), BookingState.WAITING, BookingState.APPROVED))
+                .thenReturn(1);
 
         Booking actualBooking = bookingService.updateBookingState(userId, bookingId, approved);
 
         assertEquals(expectedBooking, actualBooking);
-        verify(bookingRepository, times(1)).save(expectedBooking);
+        verify(bookingRepository, never()).save(any(Booking.class));
+        verifyNoInteractions(itemBookingDatesUpdater);
     }
 
     @Test
@@ -148,12 +206,34 @@ class BookingServiceImplTest {
                 item, booker, BookingState.REJECTED);
         when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
         when(userRepository.findById(userId)).thenReturn(Optional.of(booker));
-        when(bookingRepository.save(expectedBooking)).thenReturn(expectedBooking);
+        when(bookingRepository.updateStateByIdIn(List.of(bookingId), BookingState.WAITING, BookingState.REJECTED))
+                .thenReturn(1);
 
         Booking actualBooking = bookingService.updateBookingState(userId, bookingId, approved);
 
         assertEquals(expectedBooking, actualBooking);
-        verify(bookingRepository, times(1)).save(expectedBooking);
+        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(bookingAvailabilityIndex, times(1)).remove(expectedBooking);
+        verify(itemBookingDatesUpdater, times(1)).update(List.of(item.getId()));
+    }
+
+    @Test
+    void updateBookingStateTest_whenExpiredConcurrently_shouldThrowBadRequestExceptionAndKeepSchedule() {
+        long userId = 1L;
+        long bookingId = 1L;
+        User owner = new User(1L, "userName1", "email1@email.com");
+        Item item = new Item(1L, "itemName", "itemDescription", true, owner, null);
+        ZonedDateTime time = ZonedDateTime.now(ZoneOffset.UTC);
+        Booking booking = new Booking(1L, time.plusMinutes(2), time.plusMinutes(3),
+                item, owner, BookingState.WAITING);
+        when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
+        when(userRepository.findById(userId)).thenReturn(Optional.of(owner));
+        // Между загрузкой и UPDATE бронирование отклонила задача StaleBookingExpiryJob
+        when(bookingRepository.updateStateByIdIn(List.of(bookingId), BookingState.WAITING, BookingState.APPROVED))
+                .thenReturn(0);
+
+        assertThrows(BadRequestException.class, () -> bookingService.updateBookingState(userId, bookingId, true));
+        verifyNoInteractions(bookingAvailabilityIndex, itemBookingDatesUpdater);
     }
 
     @Test
@@ -170,7 +250,7 @@ class BookingServiceImplTest {
         when(userRepository.findById(userId)).thenReturn(Optional.of(booker));
 
         assertThrows(BadRequestException.class, () -> bookingService.updateBookingState(userId, bookingId, approved));
-        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(bookingRepository, never()).updateStateByIdIn(any(), any(), any());
     }
 
     @Test
@@ -187,7 +267,7 @@ class BookingServiceImplTest {
         when(userRepository.findById(userId)).thenReturn(Optional.of(booker));
 
         assertThrows(DataAccessException.class, () -> bookingService.updateBookingState(userId, bookingId, approved));
-        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(bookingRepository, never()).updateStateByIdIn(any(), any(), any());
     }
 
     @Test
@@ -203,7 +283,7 @@ class BookingServiceImplTest {
         when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
 
         assertThrows(DataAccessException.class, () -> bookingService.updateBookingState(userId, bookingId, approved));
-        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(bookingRepository, never()).updateStateByIdIn(any(), any(), any());
     }
 
     @Test
@@ -213,7 +293,7 @@ class BookingServiceImplTest {
         Boolean approved = true;
 
         assertThrows(NotFoundException.class, () -> bookingService.updateBookingState(userId, bookingId, approved));
-        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(bookingRepository, never()).updateStateByIdIn(any(), any(), any());
     }
 
     @Test
@@ -282,12 +362,34 @@ class BookingServiceImplTest {
                 null, null, BookingState.APPROVED);
         List<Booking> expectedBookings = List.of(booking);
         when(userRepository.findById(userId)).thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllByBookerIdAndStateOrderByStartDesc(userId, state)).thenReturn(List.of(booking));
+        when(bookingRepository.findBookings(eq(BookingRole.BOOKER), eq(userId), eq(state), any(), eq(PAGE)))
+                .thenReturn(List.of(booking));
 
-        List<Booking> actualBookings = bookingService.getAllBookingsByUser(userId, state);
+        List<Booking> actualBookings = bookingService.getAllBookingsByUser(userId, state, 0, 10);
 
         assertEquals(expectedBookings, actualBookings);
-        verify(bookingRepository, times(1)).findAllByBookerIdAndStateOrderByStartDesc(userId, state);
+        verify(bookingRepository, times(1)).findBookings(eq(BookingRole.BOOKER), eq(userId), eq(state), any(), eq(PAGE));
+    }
+
+    @Test
+    void getAllBookingsByOwnerTest_whenFromNotMultipleOfSize_shouldPassOffsetAsIs() {
+        long userId = 1L;
+        User owner = new User(1L, "userName1", "email1@email.com");
+        when(userRepository.findById(userId)).thenReturn(Optional.of(owner));
+
+        bookingService.getAllBookingsByOwner(userId, BookingState.ALL, 5, 10);
+
+        verify(bookingRepository, times(1)).findBookings(eq(BookingRole.OWNER), eq(userId), eq(BookingState.ALL),
+                any(), eq(OffsetPageRequest.of(5, 10)));
+    }
+
+    @Test
+    void getAllBookingsByUserTest_whenSizeNotPositive_shouldThrowBadRequestException() {
+        assertThrows(BadRequestException.class,
+                () -> bookingService.getAllBookingsByUser(1L, BookingState.ALL, 0, 0));
+        assertThrows(BadRequestException.class,
+                () -> bookingService.getAllBookingsByOwner(1L, BookingState.ALL, 0, 0));
+        verify(bookingRepository, never()).findBookings(any(), any(), any(), any(), any());
     }
 
     @Test
@@ -302,12 +404,14 @@ class BookingServiceImplTest {
                 null, null, BookingState.WAITING);
         List<Booking> expectedBookings = List.of(booking, booking1);
         when(userRepository.findById(userId)).thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllByBookerIdOrderByStartDesc(userId)).thenReturn(List.of(booking, booking1));
+        when(bookingRepository.findBookings(eq(BookingRole.BOOKER), eq(userId), eq(BookingState.ALL), any(), eq(PAGE)))
+                .thenReturn(List.of(booking, booking1));
 
-        List<Booking> actualBookings = bookingService.getAllBookingsByUser(userId, state);
+        List<Booking> actualBookings = bookingService.getAllBookingsByUser(userId, state, 0, 10);
 
         assertEquals(expectedBookings, actualBookings);
-        verify(bookingRepository, times(1)).findAllByBookerIdOrderByStartDesc(userId);
+        verify(bookingRepository, times(1)).findBookings(eq(BookingRole.BOOKER), eq(userId),
+                eq(BookingState.ALL), any(), eq(PAGE));
     }
 
     @Test
@@ -315,9 +419,8 @@ class BookingServiceImplTest {
         long userId = 1L;
         BookingState state = BookingState.ALL;
 
-        assertThrows(NotFoundException.class, () -> bookingService.getAllBookingsByUser(userId, state));
-        verify(bookingRepository, never()).findAllByBookerIdOrderByStartDesc(userId);
-        verify(bookingRepository, never()).findAllByBookerIdAndStateOrderByStartDesc(userId, state);
+        assertThrows(NotFoundException.class, () -> bookingService.getAllBookingsByUser(userId, state, 0, 10));
+        verify(bookingRepository, never()).findBookings(any(), anyLong(), any(), any(), any());
     }
 
     @Test
@@ -330,12 +433,13 @@ class BookingServiceImplTest {
                 null, null, BookingState.APPROVED);
         List<Booking> expectedBookings = List.of(booking);
         when(userRepository.findById(userId)).thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllByItemOwnerIdAndStateOrderByStartDesc(userId, state)).thenReturn(List.of(booking));
+        when(bookingRepository.findBookings(eq(BookingRole.OWNER), eq(userId), eq(state), any(), eq(PAGE)))
+                .thenReturn(List.of(booking));
 
-        List<Booking> actualBookings = bookingService.getAllBookingsByOwner(userId, state);
+        List<Booking> actualBookings = bookingService.getAllBookingsByOwner(userId, state, 0, 10);
 
         assertEquals(expectedBookings, actualBookings);
-        verify(bookingRepository, times(1)).findAllByItemOwnerIdAndStateOrderByStartDesc(userId, state);
+        verify(bookingRepository, times(1)).findBookings(eq(BookingRole.OWNER), eq(userId), eq(state), any(), eq(PAGE));
     }
 
     @Test
@@ -350,12 +454,14 @@ class BookingServiceImplTest {
                 null, null, BookingState.WAITING);
         List<Booking> expectedBookings = List.of(booking, booking1);
         when(userRepository.findById(userId)).thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllByItemOwnerIdOrderByStartDesc(userId)).thenReturn(List.of(booking, booking1));
+        when(bookingRepository.findBookings(eq(BookingRole.OWNER), eq(userId), eq(BookingState.ALL), any(), eq(PAGE)))
+                .thenReturn(List.of(booking, booking1));
 
-        List<Booking> actualBookings = bookingService.getAllBookingsByOwner(userId, state);
+        List<Booking> actualBookings = bookingService.getAllBookingsByOwner(userId, state, 0, 10);
 
         assertEquals(expectedBookings, actualBookings);
-        verify(bookingRepository, times(1)).findAllByItemOwnerIdOrderByStartDesc(userId);
+        verify(bookingRepository, times(1)).findBookings(eq(BookingRole.OWNER), eq(userId),
+                eq(BookingState.ALL), any(), eq(PAGE));
     }
 
     @Test
@@ -363,8 +469,120 @@ class BookingServiceImplTest {
         long userId = 1L;
         BookingState state = BookingState.ALL;
 
-        assertThrows(NotFoundException.class, () -> bookingService.getAllBookingsByOwner(userId, state));
-        verify(bookingRepository, never()).findAllByItemOwnerIdOrderByStartDesc(userId);
-        verify(bookingRepository, never()).findAllByItemOwnerIdAndStateOrderByStartDesc(userId, state);
+        assertThrows(NotFoundException.class, () -> bookingService.getAllBookingsByOwner(userId, state, 0, 10));
+        verify(bookingRepository, never()).findBookings(any(), anyLong(), any(), any(), any());
+    }
+
+    @Test
+    void getBookingSummaryByOwnerTest_shouldCountStatesForOwner() {
+        long userId = 1L;
+        BookingStateCounts counts = new BookingStateCounts(1L, 2L, 0L, 1L, 1L, 1L);
+        when(userRepository.findById(userId)).thenReturn(Optional.of(new User()));
+        when(bookingRepository.countBookingStates(eq(BookingRole.OWNER), eq(userId), any())).thenReturn(counts);
+
+        assertEquals(counts, bookingService.getBookingSummaryByOwner(userId));
+    }
+
+    @Test
+    void getBookingSummaryByUserTest_whenUserNotExists_shouldThrowNotFoundException() {
+        long userId = 1L;
+
+        assertThrows(NotFoundException.class, () -> bookingService.getBookingSummaryByUser(userId));
+        verify(bookingRepository, never()).countBookingStates(any(), anyLong(), any());
+    }
+
+    @Test
+    void updateBookingStatesTest_whenAllWaitingAndOwned_shouldUpdateAll() {
+        User owner = new User(1L, "userName1", "email1@email.com");
+        Item item = new Item(1L, "itemName", "itemDescription", true, owner, null);
+        ZonedDateTime time = ZonedDateTime.now(ZoneOffset.UTC);
+        Booking approved = new Booking(1L, time.plusDays(1), time.plusDays(2), item, null, BookingState.WAITING);
+        Booking rejected = new Booking(2L, time.plusDays(3), time.plusDays(4), item, null, BookingState.WAITING);
+        Map<Long, Boolean> decisions = new LinkedHashMap<>();
+        decisions.put(2L, false);
+        decisions.put(1L, true);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(owner));
+        when(bookingRepository.findAllByIdIn(decisions.keySet())).thenReturn(List.of(approved, rejected));
+        when(bookingRepository.updateStateByIdIn(List.of(1L), BookingState.WAITING, BookingState.APPROVED))
+                .thenReturn(1);
+        when(bookingRepository.updateStateByIdIn(List.of(2L), BookingState.WAITING, BookingState.REJECTED))
+                .thenReturn(1);
+
+        List<Booking> actualBookings = bookingService.updateBookingStates(1L, decisions);
+
+        assertEquals(List.of(rejected, approved), actualBookings);
+        assertEquals(BookingState.REJECTED, rejected.getState());
+        assertEquals(BookingState.APPROVED, approved.getState());
+        verify(bookingAvailabilityIndex, times(1)).remove(rejected);
+        verify(bookingAvailabilityIndex, never()).remove(approved);
+        verify(itemBookingDatesUpdater, times(1)).update(Set.of(rejected.getItem().getId()));
+    }
+
+    @Test
+    void updateBookingStatesTest_whenOneExpiredConcurrently_shouldThrowBadRequestException() {
+        User owner = new User(1L, "userName1", "email1@email.com");
+        Item item = new Item(1L, "itemName", "itemDescription", true, owner, null);
+        ZonedDateTime time = ZonedDateTime.now(ZoneOffset.UTC);
+        Booking first = new Booking(1L, time.plusDays(1), time.plusDays(2), item, null, BookingState.WAITING);
+        Booking second = new Booking(2L, time.plusDays(3), time.plusDays(4), item, null, BookingState.WAITING);
+        Map<Long, Boolean> decisions = new LinkedHashMap<>();
+        decisions.put(1L, true);
+        decisions.put(2L, true);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(owner));
+        when(bookingRepository.findAllByIdIn(decisions.keySet())).thenReturn(List.of(first, second));
+        // Второе бронирование успела отклонить задача StaleBookingExpiryJob
+        when(bookingRepository.updateStateByIdIn(List.of(1L, 2L), BookingState.WAITING, BookingState.APPROVED))
+                .thenReturn(1);
+
+        assertThrows(BadRequestException.class, () -> bookingService.updateBookingStates(1L, decisions));
+        verifyNoInteractions(bookingAvailabilityIndex, itemBookingDatesUpdater);
+    }
+
+    @Test
+    void updateBookingStatesTest_whenInTransaction_shouldFreeTimeOnlyAfterCommit() {
+        User owner = new User(1L, "userName1", "email1@email.com");
+        Item item = new Item(1L, "itemName", "itemDescription", true, owner, null);
+        ZonedDateTime time = ZonedDateTime.now(ZoneOffset.UTC);
+        Booking rejected = new Booking(1L, time.plusDays(1), time.plusDays(2), item, null, BookingState.WAITING);
+        Map<Long, Boolean> decisions = new LinkedHashMap<>(Map.of(1L, false));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(owner));
+        when(bookingRepository.findAllByIdIn(decisions.keySet())).thenReturn(List.of(rejected));
+        when(bookingRepository.updateStateByIdIn(List.of(1L), BookingState.WAITING, BookingState.REJECTED))
+                .thenReturn(1);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            bookingService.updateBookingStates(1L, decisions);
+
+            // До фиксации транзакции бронирование остается в расписании
+            verify(bookingAvailabilityIndex, never()).remove(any(Booking.class));
+            verify(itemBookingDatesUpdater, times(1)).update(Set.of(item.getId()));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(bookingAvailabilityIndex, times(1)).remove(rejected);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void updateBookingStatesTest_whenOneBookingNotWaitingOrNotOwned_shouldUpdateNothing() {
+        User owner = new User(1L, "userName1", "email1@email.com");
+        User stranger = new User(2L, "userName2", "email2@email.com");
+        ZonedDateTime time = ZonedDateTime.now(ZoneOffset.UTC);
+        Item item = new Item(1L, "itemName", "itemDescription", true, owner, null);
+        Item strangerItem = new Item(2L, "itemName", "itemDescription", true, stranger, null);
+        Booking waiting = new Booking(1L, time.plusDays(1), time.plusDays(2), item, null, BookingState.WAITING);
+        Booking approved = new Booking(2L, time.plusDays(3), time.plusDays(4), item, null, BookingState.APPROVED);
+        Booking foreign = new Booking(3L, time.plusDays(3), time.plusDays(4), strangerItem, null, BookingState.WAITING);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(owner));
+        when(bookingRepository.findAllByIdIn(any())).thenReturn(List.of(waiting, approved, foreign));
+
+        assertThrows(BadRequestException.class,
+                () -> bookingService.updateBookingStates(1L, new LinkedHashMap<>(Map.of(1L, true, 2L, false))));
+        assertThrows(DataAccessException.class,
+                () -> bookingService.updateBookingStates(1L, new LinkedHashMap<>(Map.of(3L, true))));
+        assertThrows(NotFoundException.class,
+                () -> bookingService.updateBookingStates(1L, new LinkedHashMap<>(Map.of(4L, true))));
+        verify(bookingRepository, never()).updateStateByIdIn(any(), any(), any());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,43 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.item.ItemRepository;
+
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ItemBookingDatesUpdaterTest {
+    @Mock
+    private ItemRepository itemRepository;
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Test
+    void updateAll_shouldUpdateItemsByIdRanges() {
+        ItemBookingDatesUpdater updater = new ItemBookingDatesUpdater(itemRepository, bookingRepository, 100);
+        when(itemRepository.findMaxId()).thenReturn(250L);
+        when(itemRepository.updateBookingDatesByIdBetween(anyLong(), anyLong(), eq(BookingState.REJECTED),
+                any(ZonedDateTime.class))).thenReturn(100, 100, 50);
+
+        assertEquals(250, updater.updateAll());
+        verify(itemRepository).updateBookingDatesByIdBetween(eq(0L), eq(100L), eq(BookingState.REJECTED), any());
+        verify(itemRepository).updateBookingDatesByIdBetween(eq(100L), eq(200L), eq(BookingState.REJECTED), any());
+        verify(itemRepository).updateBookingDatesByIdBetween(eq(200L), eq(300L), eq(BookingState.REJECTED), any());
+        verifyNoMoreInteractions(itemRepository);
+    }
+
+    @Test
+    void updateAll_whenNoItems_shouldNotUpdate() {
+        ItemBookingDatesUpdater updater = new ItemBookingDatesUpdater(itemRepository, bookingRepository, 100);
+        when(itemRepository.findMaxId()).thenReturn(null);
+
+        assertEquals(0, updater.updateAll());
+        verifyNoMoreInteractions(itemRepository);
+    }
+}
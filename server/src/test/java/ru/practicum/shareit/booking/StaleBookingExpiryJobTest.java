@@ -0,0 +1,81 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StaleBookingExpiryJobTest {
+    @Mock
+    private BookingRepository bookingRepository;
+    @Mock
+    private BookingAvailabilityIndex bookingAvailabilityIndex;
+    @Mock
+    private ItemBookingDatesUpdater itemBookingDatesUpdater;
+
+    private MeterRegistry meterRegistry;
+    private StaleBookingExpiryJob job;
+
+    @BeforeEach
+    void createJob() {
+        meterRegistry = new SimpleMeterRegistry();
+        job = new StaleBookingExpiryJob(bookingRepository, bookingAvailabilityIndex, itemBookingDatesUpdater,
+                meterRegistry, 2);
+    }
+
+    @Test
+    void expireStaleBookings_shouldRejectBatchesUntilLastIncompleteBatch() {
+        when(bookingRepository.findExpiredBookings(eq(BookingState.WAITING), any(ZonedDateTime.class),
+                eq(Limit.of(2))))
+                .thenReturn(List.of(new ExpiredBooking(1L, 10L), new ExpiredBooking(2L, 20L)))
+                .thenReturn(List.of(new ExpiredBooking(3L, 30L)));
+        // Бронирование 2 успели подтвердить после выборки пачки, UPDATE его пропустил
+        when(bookingRepository.updateStateByIdIn(List.of(1L, 2L), BookingState.WAITING, BookingState.REJECTED))
+                .thenReturn(1);
+        when(bookingRepository.findIdsByIdInAndState(List.of(1L, 2L), BookingState.REJECTED))
+                .thenReturn(List.of(1L));
+        when(bookingRepository.updateStateByIdIn(List.of(3L), BookingState.WAITING, BookingState.REJECTED))
+                .thenReturn(1);
+
+        job.expireStaleBookings();
+
+        verify(bookingRepository, times(2)).findExpiredBookings(eq(BookingState.WAITING),
+                any(ZonedDateTime.class), eq(Limit.of(2)));
+        // Полностью отклоненная пачка не перечитывается
+        verify(bookingRepository, never()).findIdsByIdInAndState(List.of(3L), BookingState.REJECTED);
+        verify(bookingAvailabilityIndex).remove(10L, 1L);
+        verify(bookingAvailabilityIndex).remove(30L, 3L);
+        // Подтвержденное бронирование остается в расписании вещи
+        verify(bookingAvailabilityIndex, never()).remove(20L, 2L);
+        verify(itemBookingDatesUpdater).update(Set.of(10L));
+        verify(itemBookingDatesUpdater).update(Set.of(30L));
+        assertEquals(2.0, meterRegistry.get("shareit.bookings.expired").counter().count());
+        assertEquals(2.0, meterRegistry.get("shareit.bookings.expiry.last-run").gauge().value());
+        assertEquals(1, meterRegistry.get("shareit.bookings.expiry").timer().count());
+    }
+
+    @Test
+    void expireStaleBookings_whenNothingExpired_shouldNotUpdate() {
+        when(bookingRepository.findExpiredBookings(eq(BookingState.WAITING), any(ZonedDateTime.class),
+                eq(Limit.of(2))))
+                .thenReturn(List.of());
+
+        job.expireStaleBookings();
+
+        verify(bookingRepository, never()).updateStateByIdIn(anyCollection(), any(), any());
+        verifyNoInteractions(bookingAvailabilityIndex, itemBookingDatesUpdater);
+        assertEquals(0.0, meterRegistry.get("shareit.bookings.expired").counter().count());
+    }
+}
@@ -7,17 +7,24 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.item.dto.CommentRequestDto;
+import ru.practicum.shareit.item.dto.FreeSlotDto;
+import ru.practicum.shareit.item.dto.ItemFacetsDto;
 import ru.practicum.shareit.item.dto.ItemInDto;
+import ru.practicum.shareit.item.dto.ItemSearchResultDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
+import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
 
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 // Здесь тестируются только успешный сценарий, что при валидном запросе вызывается метод сервиса
@@ -75,7 +82,7 @@ class ItemControllerTest {
                         .header("X-Sharer-User-Id", userId))
                 .andExpect(status().isOk());
 
-        verify(itemService, times(1)).getItemsByUserId(userId);
+        verify(itemService, times(1)).getItemsByUserId(userId, null, 10);
     }
 
     @Test
@@ -96,7 +103,92 @@ class ItemControllerTest {
                         .header("X-Sharer-User-Id", userId))
                 .andExpect(status().isOk());
 
-        verify(itemService, times(1)).getItemsByText(text);
+        verify(itemService, times(1)).getItemsByText(text, false, false, 0, 10);
+    }
+
+    @Test
+    void getItemByTextTest_whenFuzzy() throws Exception {
+        String text = "txet";
+
+        mockMvc.perform(get("/items/search")
+                        .param("text", text)
+                        .param("fuzzy", "true")
+                        .header("X-Sharer-User-Id", userId))
+                .andExpect(status().isOk());
+
+        verify(itemService, times(1)).getItemsByText(text, false, true, 0, 10);
+    }
+
+    @Test
+    void getItemByTextTest_whenPeriodGiven_shouldSearchFreeItems() throws Exception {
+        String text = "text";
+
+        mockMvc.perform(get("/items/search")
+                        .param("text", text)
+                        .param("start", "2030-01-01T10:00:00")
+                        .param("end", "2030-01-03T10:00:00")
+                        .header("X-Sharer-User-Id", userId))
+                .andExpect(status().isOk());
+
+        verify(itemService, times(1)).getFreeItemsByText(text, false, false,
+                LocalDateTime.of(2030, 1, 1, 10, 0), LocalDateTime.of(2030, 1, 3, 10, 0), 0, 10);
+        verify(itemService, never()).getItemsByText(anyString(), anyBoolean(), anyBoolean(), anyInt(), anyInt());
+    }
+
+    @Test
+    void getItemNameSuggestionsTest() throws Exception {
+        String prefix = "дре";
+
+        mockMvc.perform(get("/items/suggest")
+                        .param("prefix", prefix)
+                        .header("X-Sharer-User-Id", userId))
+                .andExpect(status().isOk());
+
+        verify(itemService, times(1)).getItemNameSuggestions(prefix, 10);
+    }
+
+    @Test
+    void getItemsByTextFacetedTest() throws Exception {
+        String text = "text";
+        ItemSearchResultDto expectedResult = new ItemSearchResultDto(List.of(),
+                new ItemFacetsDto(Map.of(true, 0L, false, 0L), Map.of(true, 0L, false, 0L), Map.of()));
+        when(itemService.getItemsByTextFaceted(text, new ItemSearchFilter(true, null, 2L), 0, 10))
+                .thenReturn(expectedResult);
+
+        mockMvc.perform(get("/items/search/faceted")
+                        .param("text", text)
+                        .param("available", "true")
+                        .param("ownerId", "2")
+                        .header("X-Sharer-User-Id", userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items").isEmpty())
+                .andExpect(jsonPath("$.facets.available.true").value(0));
+    }
+
+    @Test
+    void getSimilarItemsTest() throws Exception {
+        mockMvc.perform(get("/items/{itemId}/similar", itemId)
+                        .param("size", "3")
+                        .header("X-Sharer-User-Id", userId))
+                .andExpect(status().isOk());
+
+        verify(itemService, times(1)).getSimilarItems(itemId, 3);
+    }
+
+    @Test
+    void getItemAvailabilityTest() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 10, 0, 30);
+        LocalDateTime to = LocalDateTime.of(2030, 1, 5, 10, 0, 30);
+        when(itemService.getItemAvailability(itemId, from, to))
+                .thenReturn(List.of(new FreeSlotDto(from, to)));
+
+        mockMvc.perform(get("/items/{itemId}/availability", itemId)
+                        .param("from", "2030-01-01T10:00:30")
+                        .param("to", "2030-01-05T10:00:30")
+                        .header("X-Sharer-User-Id", userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].start").value("2030-01-01T10:00:30"))
+                .andExpect(jsonPath("$[0].end").value("2030-01-05T10:00:30"));
     }
 
     @Test
@@ -5,6 +5,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.OffsetPageRequest;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.ItemRequest;
@@ -17,9 +20,13 @@ import java.time.ZonedDateTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
 class ItemRepositoryIT {
+    private static final List<String> TEXT_PATTERNS = ItemTextAnalyzer.toLikePatterns("teXT");
+
     @Autowired
     private ItemRepository itemRepository;
     @Autowired
@@ -62,14 +69,94 @@ class ItemRepositoryIT {
     }
 
     @Test
-    void findItemsByTextTest() {
+    void findAvailableItemsByTextTest() {
+        // Недоступная вещь не должна попасть в результаты поиска
+        itemRepository.save(new Item(null, "lamp", "bright text", false, petr, null));
         ball = itemRepository.findById(ball.getId())
                 .orElseThrow(() -> new NotFoundException("Вещь с таким id не найдена"));
         table = itemRepository.findById(table.getId())
                 .orElseThrow(() -> new NotFoundException("Вещь с таким id не найдена"));
-        List<Item> expectedItems = List.of(ball, table);
 
-        List<Item> actualItems = itemRepository.findItemsByText("teXT");
+        List<Item> firstPage = itemRepository.findAvailableItemsByText(TEXT_PATTERNS, PageRequest.of(0, 1));
+        List<Item> secondPage = itemRepository.findAvailableItemsByText(TEXT_PATTERNS, PageRequest.of(1, 1));
+        List<Item> thirdPage = itemRepository.findAvailableItemsByText(TEXT_PATTERNS, PageRequest.of(2, 1));
+
+        assertEquals(List.of(ball), firstPage);
+        assertEquals(List.of(table), secondPage);
+        assertEquals(List.of(), thirdPage);
+    }
+
+    @Test
+    void findAvailableItemsByTextTest_whenOffsetNotMultipleOfSize_shouldStartFromOffset() {
+        Item lamp = itemRepository.save(new Item(null, "lamp", "bright text", true, petr, null));
+        table = itemRepository.findById(table.getId())
+                .orElseThrow(() -> new NotFoundException("Вещь с таким id не найдена"));
+        lamp = itemRepository.findById(lamp.getId())
+                .orElseThrow(() -> new NotFoundException("Вещь с таким id не найдена"));
+
+        // Со смещением 1 при размере 2 возвращаются вторая и третья вещи, а не первая страница
+        List<Item> actualItems = itemRepository.findAvailableItemsByText(TEXT_PATTERNS, OffsetPageRequest.of(1, 2));
+
+        assertEquals(List.of(table, lamp), actualItems);
+    }
+
+    @Test
+    void findAvailableItemsByTextRankedTest() {
+        Item lamp = itemRepository.save(new Item(null, "lamp", "bright text", true, petr, null));
+        ball = itemRepository.findById(ball.getId())
+                .orElseThrow(() -> new NotFoundException("Вещь с таким id не найдена"));
+        table = itemRepository.findById(table.getId())
+                .orElseThrow(() -> new NotFoundException("Вещь с таким id не найдена"));
+        lamp = itemRepository.findById(lamp.getId())
+                .orElseThrow(() -> new NotFoundException("Вещь с таким id не найдена"));
+        List<Item> expectedItems = List.of(ball, table, lamp);
+
+        List<Item> actualItems = itemRepository.findAvailableItemsByTextRanked(TEXT_PATTERNS, PageRequest.of(0, 10));
+
+        assertEquals(expectedItems, actualItems);
+    }
+
+    @Test
+    void findAvailableItemsByTextTest_whenWordsInOtherOrder_shouldMatchEachStem() {
+        Item fir = itemRepository.save(new Item(null, "Ёлка новогодняя", "искусственная", true, petr, null));
+        fir = itemRepository.findById(fir.getId())
+                .orElseThrow(() -> new NotFoundException("Вещь с таким id не найдена"));
+
+        // Слова в обратном порядке, с е вместо ё и из разных полей
+        List<Item> actualItems = itemRepository.findAvailableItemsByText(
+                ItemTextAnalyzer.toLikePatterns("искусственная новогодняя елка"), PageRequest.of(0, 10));
+        List<Item> missingWord = itemRepository.findAvailableItemsByText(
+                ItemTextAnalyzer.toLikePatterns("новогодняя гирлянда"), PageRequest.of(0, 10));
+
+        assertEquals(List.of(fir), actualItems);
+        assertEquals(List.of(), missingWord);
+    }
+
+    @Test
+    void findAvailableItemsByTextTest_whenQueryHasWildcards_shouldMatchThemLiterally() {
+        Item shirt = itemRepository.save(new Item(null, "shirt", "100% cotton", true, petr, null));
+        shirt = itemRepository.findById(shirt.getId())
+                .orElseThrow(() -> new NotFoundException("Вещь с таким id не найдена"));
+
+        // % и _ из запроса не должны совпадать с любыми символами
+        List<Item> percent = itemRepository.findAvailableItemsByText(ItemTextAnalyzer.toLikePatterns("%"),
+                PageRequest.of(0, 10));
+        List<Item> underscore = itemRepository.findAvailableItemsByText(ItemTextAnalyzer.toLikePatterns("_"),
+                PageRequest.of(0, 10));
+
+        assertEquals(List.of(shirt), percent);
+        assertEquals(List.of(), underscore);
+    }
+
+    @Test
+    void findAllByIdInTest() {
+        apple = itemRepository.findById(apple.getId())
+                .orElseThrow(() -> new NotFoundException("Вещь с таким id не найдена"));
+        table = itemRepository.findById(table.getId())
+                .orElseThrow(() -> new NotFoundException("Вещь с таким id не найдена"));
+        List<Item> expectedItems = List.of(apple, table);
+
+        List<Item> actualItems = itemRepository.findAllByIdIn(List.of(apple.getId(), table.getId()));
 
         assertEquals(expectedItems, actualItems);
     }
@@ -87,6 +174,25 @@ class ItemRepositoryIT {
         assertEquals(expectedItems, actualItems);
     }
 
+    @Test
+    void findAllByOwnerIdAndIdGreaterThanOrderByIdAscTest() {
+        apple = itemRepository.findById(apple.getId())
+                .orElseThrow(() -> new NotFoundException("Вещь с таким id не найдена"));
+        table = itemRepository.findById(table.getId())
+                .orElseThrow(() -> new NotFoundException("Вещь с таким id не найдена"));
+
+        List<Item> firstPage = itemRepository.findAllByOwnerIdAndIdGreaterThanOrderByIdAsc(ivan.getId(), 0L,
+                Limit.of(1));
+        List<Item> secondPage = itemRepository.findAllByOwnerIdAndIdGreaterThanOrderByIdAsc(ivan.getId(),
+                firstPage.getLast().getId(), Limit.of(1));
+        List<Item> thirdPage = itemRepository.findAllByOwnerIdAndIdGreaterThanOrderByIdAsc(ivan.getId(),
+                secondPage.getLast().getId(), Limit.of(1));
+
+        assertEquals(List.of(apple), firstPage);
+        assertEquals(List.of(table), secondPage);
+        assertEquals(List.of(), thirdPage);
+    }
+
     @Test
     void findAllByRequestIdTest() {
         apple = itemRepository.findById(apple.getId())
@@ -112,4 +218,55 @@ class ItemRepositoryIT {
 
         assertEquals(expectedItems, actualItems);
     }
-}
\ No newline at end of file
+
+    @Test
+    void findAllSearchViewsTest() {
+        // Вещь без запроса тоже должна попасть в индекс
+        Item lamp = itemRepository.save(new Item(null, "lamp", "bright", false, petr, null));
+
+        List<ItemSearchView> views = itemRepository.findAllSearchViews();
+
+        assertEquals(4, views.size());
+        ItemSearchView ballView = views.stream()
+                .filter(view -> view.getId().equals(ball.getId()))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(ball.getName(), ballView.getName());
+        assertEquals(petr.getId(), ballView.getOwnerId());
+        assertEquals(requestBall.getId(), ballView.getRequestId());
+        ItemSearchView lampView = views.stream()
+                .filter(view -> view.getId().equals(lamp.getId()))
+                .findFirst()
+                .orElseThrow();
+        assertNull(lampView.getRequestId());
+    }
+
+    @Test
+    void findItemsByTextAndFilterTest() {
+        Item lamp = itemRepository.save(new Item(null, "lamp", "bright text", false, petr, null));
+
+        assertEquals(List.of(ball, table, lamp), itemRepository.findItemsByTextAndFilter(TEXT_PATTERNS,
+                null, null, null, PageRequest.of(0, 10)));
+        assertEquals(List.of(lamp), itemRepository.findItemsByTextAndFilter(TEXT_PATTERNS,
+                false, null, null, PageRequest.of(0, 10)));
+        assertEquals(List.of(ball, table), itemRepository.findItemsByTextAndFilter(TEXT_PATTERNS,
+                null, true, null, PageRequest.of(0, 10)));
+        assertEquals(List.of(ball), itemRepository.findItemsByTextAndFilter(TEXT_PATTERNS,
+                true, true, petr.getId(), PageRequest.of(0, 10)));
+        assertEquals(List.of(table), itemRepository.findItemsByTextAndFilter(TEXT_PATTERNS,
+                null, null, null, PageRequest.of(1, 1)));
+    }
+
+    @Test
+    void countFacetGroupsByTextTest() {
+        itemRepository.save(new Item(null, "lamp", "bright text", false, petr, null));
+        itemRepository.save(new Item(null, "desk", "text", true, petr, null));
+
+        List<ItemFacetGroup> groups = itemRepository.countFacetGroupsByText(TEXT_PATTERNS);
+
+        assertEquals(3, groups.size());
+        assertTrue(groups.contains(new ItemFacetGroup(true, petr.getId(), 2L, 1L)));
+        assertTrue(groups.contains(new ItemFacetGroup(false, petr.getId(), 1L, 0L)));
+        assertTrue(groups.contains(new ItemFacetGroup(true, ivan.getId(), 1L, 1L)));
+    }
+}
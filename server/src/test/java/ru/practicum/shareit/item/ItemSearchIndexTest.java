@@ -0,0 +1,185 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ItemSearchIndexTest {
+    @Mock
+    private ItemRepository itemRepository;
+
+    private ItemSearchIndex itemSearchIndex;
+
+    private final User owner = new User(1L, "userName", "email@email.com");
+
+    @BeforeEach
+    void addItemsInIndex() {
+        itemSearchIndex = new ItemSearchIndex(itemRepository, ItemSearchMode.MEMORY);
+        itemSearchIndex.add(new Item(1L, "Дрель ударная", "Мощная дрель", true, owner, null));
+        itemSearchIndex.add(new Item(2L, "Отвертка", "Аккумуляторная отвертка", true, owner, null));
+        itemSearchIndex.add(new Item(3L, "Дрель", "Старая дрель", false, owner, null));
+        itemSearchIndex.add(new Item(4L, "ball TexT", "circle", true, owner, null));
+    }
+
+    @Test
+    void searchTest_whenTextInNameOrDescription_shouldReturnAvailableItems() {
+        assertEquals(List.of(1L), itemSearchIndex.search("дРЕль", false, 0, 10));
+        assertEquals(List.of(2L), itemSearchIndex.search("аккумулятор", false, 0, 10));
+        assertEquals(List.of(4L), itemSearchIndex.search("teXT", false, 0, 10));
+    }
+
+    @Test
+    void searchTest_whenTextShorterThanGram_shouldReturnItems() {
+        assertEquals(List.of(1L, 2L), itemSearchIndex.search("о", false, 0, 10));
+        assertEquals(List.of(4L), itemSearchIndex.search("ci", false, 0, 10));
+    }
+
+    @Test
+    void searchTest_whenGramsMatchButSubstringNot_shouldReturnEmptyList() {
+        assertEquals(List.of(), itemSearchIndex.search("ая дрель уд", false, 0, 10));
+    }
+
+    @Test
+    void searchTest_whenPageRequested_shouldReturnOnlyPage() {
+        itemSearchIndex.add(new Item(5L, "Дрель", "Новая", true, owner, null));
+        itemSearchIndex.add(new Item(6L, "Дрель", "Новая", true, owner, null));
+
+        assertEquals(List.of(1L, 5L), itemSearchIndex.search("дрель", false, 0, 2));
+        assertEquals(List.of(6L), itemSearchIndex.search("дрель", false, 2, 2));
+        assertEquals(List.of(), itemSearchIndex.search("дрель", false, 4, 2));
+    }
+
+    @Test
+    void searchRankedTest_shouldPutNameAndFrequentMatchesFirst() {
+        itemSearchIndex.add(new Item(5L, "Ящик", "Ящик для дрели", true, owner, null));
+        itemSearchIndex.add(new Item(6L, "Набор", "Дрель, сверла, дрель-шуруповерт и еще одна дрель", true, owner, null));
+
+        // 1: текст и основа в названии и описании, 6: три вхождения в описании, 5: только основа "дрели"
+        assertEquals(List.of(1L, 6L, 5L), itemSearchIndex.searchRanked("дрель", false, 0, 10));
+        assertEquals(List.of(6L), itemSearchIndex.searchRanked("дрель", false, 1, 1));
+    }
+
+    @Test
+    void searchTest_whenOtherWordForm_shouldFindItemsByStem() {
+        itemSearchIndex.add(new Item(5L, "Ударные дрели", "Набор", true, owner, null));
+        itemSearchIndex.add(new Item(6L, "Ёлка", "Искусственная", true, owner, null));
+
+        assertEquals(List.of(1L, 5L), itemSearchIndex.search("ДРЕЛИ", false, 0, 10));
+        assertEquals(List.of(1L, 5L), itemSearchIndex.search("ударной дрелью", false, 0, 10));
+        assertEquals(List.of(2L), itemSearchIndex.search("отвертки", false, 0, 10));
+        assertEquals(List.of(6L), itemSearchIndex.search("елки", false, 0, 10));
+        assertEquals(List.of(), itemSearchIndex.search("дрели отвертки", false, 0, 10));
+    }
+
+    @Test
+    void searchTest_whenFuzzyAndWordMisspelled_shouldFindSimilarWords() {
+        itemSearchIndex.add(new Item(5L, "Перфоратор", "Профессиональный", true, owner, null));
+
+        assertEquals(List.of(), itemSearchIndex.search("дрэль", false, 0, 10));
+        assertEquals(List.of(1L), itemSearchIndex.search("дрэль", true, 0, 10));
+        assertEquals(List.of(1L), itemSearchIndex.search("дрэли удорные", true, 0, 10));
+        assertEquals(List.of(5L), itemSearchIndex.search("пефоратр", true, 0, 10));
+        assertEquals(List.of(2L), itemSearchIndex.searchRanked("аккумуляторня отвртка", true, 0, 10));
+    }
+
+    @Test
+    void searchTest_whenFuzzyAndWordTooFar_shouldReturnEmptyList() {
+        assertEquals(List.of(), itemSearchIndex.search("дрюмп", true, 0, 10));
+        // Короткие слова не исправляются
+        assertEquals(List.of(), itemSearchIndex.search("ьалл", true, 0, 10));
+    }
+
+    @Test
+    void searchTest_whenFuzzyAndWordRemovedFromVocabulary_shouldNotFindIt() {
+        itemSearchIndex.remove(2L);
+
+        assertEquals(List.of(), itemSearchIndex.search("отвертко", true, 0, 10));
+    }
+
+    @Test
+    void searchFacetedTest_shouldReturnFilteredPageAndGroupsOfAllMatches() {
+        User ivan = new User(2L, "ivan", "ivan@email.com");
+        ItemRequest request = new ItemRequest(1L, "Нужна дрель", ivan, null);
+        itemSearchIndex.add(new Item(5L, "Дрель", "По запросу", true, ivan, request));
+        itemSearchIndex.add(new Item(6L, "Дрель", "Сломана", false, ivan, null));
+
+        ItemSearchIndex.FacetedSearch all = itemSearchIndex.searchFaceted("дрель", new ItemSearchFilter(), 0, 10);
+        ItemSearchIndex.FacetedSearch filtered = itemSearchIndex.searchFaceted("дрель",
+                new ItemSearchFilter(null, false, 2L), 0, 10);
+
+        // Недоступные вещи тоже находятся, если фильтр по доступности не задан
+        assertEquals(List.of(1L, 3L, 5L, 6L), all.itemIds());
+        assertEquals(List.of(6L), filtered.itemIds());
+        assertEquals(4, filtered.groups().size());
+        assertTrue(filtered.groups().contains(new ItemFacetGroup(true, 1L, 1L, 0L)));
+        assertTrue(filtered.groups().contains(new ItemFacetGroup(false, 1L, 1L, 0L)));
+        assertTrue(filtered.groups().contains(new ItemFacetGroup(true, 2L, 1L, 1L)));
+        assertTrue(filtered.groups().contains(new ItemFacetGroup(false, 2L, 1L, 0L)));
+        assertEquals(List.of(1L), itemSearchIndex.searchFaceted("дрель",
+                new ItemSearchFilter(true, null, null), 0, 1).itemIds());
+    }
+
+    @Test
+    void searchTest_whenItemsAddedOutOfIdOrderAndRemoved_shouldKeepPostingsSorted() {
+        for (long id = 40; id >= 10; id--) {
+            itemSearchIndex.add(new Item(id, "Молоток", "Стальной", true, owner, null));
+        }
+        for (long id = 11; id <= 40; id++) {
+            itemSearchIndex.remove(id);
+        }
+        itemSearchIndex.add(new Item(5L, "Молоток", "Резиновый", true, owner, null));
+
+        assertEquals(List.of(5L, 10L), itemSearchIndex.search("олот", false, 0, 10));
+        assertEquals(List.of(5L, 10L), itemSearchIndex.search("ло", false, 0, 10));
+    }
+
+    @Test
+    void editDistanceTest() {
+        assertEquals(0, ItemSearchIndex.editDistance("дрел", "дрел", 2));
+        assertEquals(1, ItemSearchIndex.editDistance("дрэл", "дрел", 2));
+        assertEquals(2, ItemSearchIndex.editDistance("пефоратр", "перфоратор", 2));
+        assertEquals(2, ItemSearchIndex.editDistance("шуруповерт", "дрел", 1));
+    }
+
+    @Test
+    void searchTest_whenItemUpdated_shouldSearchByNewText() {
+        itemSearchIndex.add(new Item(2L, "Шуруповерт", "Аккумуляторный", true, owner, null));
+        itemSearchIndex.add(new Item(3L, "Дрель", "Старая дрель", true, owner, null));
+
+        assertEquals(List.of(), itemSearchIndex.search("отвертка", false, 0, 10));
+        assertEquals(List.of(2L), itemSearchIndex.search("шуруп", false, 0, 10));
+        assertEquals(List.of(1L, 3L), itemSearchIndex.search("дрель", false, 0, 10));
+    }
+
+    @Test
+    void searchTest_whenItemRemoved_shouldNotReturnItem() {
+        itemSearchIndex.remove(1L);
+
+        assertEquals(List.of(), itemSearchIndex.search("дрель", false, 0, 10));
+    }
+
+    @Test
+    void addTest_whenDatabaseMode_shouldNotIndexItems() {
+        ItemSearchIndex disabledIndex = new ItemSearchIndex(itemRepository, ItemSearchMode.DATABASE);
+        disabledIndex.add(new Item(1L, "Дрель", "Мощная дрель", true, owner, null));
+        disabledIndex.build();
+
+        assertFalse(disabledIndex.isEnabled());
+        assertEquals(List.of(), disabledIndex.search("дрель", false, 0, 10));
+        verify(itemRepository, never()).findAllSearchViews();
+    }
+}
@@ -1,17 +1,26 @@
 package ru.practicum.shareit.item;
 
 import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.config.CacheConfig;
 import ru.practicum.shareit.item.dto.ItemOutDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 @SpringBootTest
 @Transactional
@@ -20,10 +29,19 @@ public class ItemServiceIT {
     private ItemService itemService;
     @Autowired
     private EntityManager entityManager;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private ItemSearchIndex itemSearchIndex;
+    @Autowired
+    private ItemSuggestIndex itemSuggestIndex;
+    @Autowired
+    private ItemSimilarityIndex itemSimilarityIndex;
 
     private User petr;
     private Item apple;
-
+    // Вещи теста, которые могли попасть в индексы при создании или обновлении через сервис
+    private final List<Long> indexedItemIds = new ArrayList<>();
 
     @BeforeEach
     void addBookingsInDataBase() {
@@ -35,6 +53,19 @@ public class ItemServiceIT {
 
         entityManager.flush();
         entityManager.clear();
+        indexedItemIds.add(apple.getId());
+    }
+
+    // Строки в базе откатываются вместе с транзакцией теста, а кэши и индексы общие для всего контекста
+    // и остаются заполненными. Очищаем их, чтобы следующие тесты не видели вещей, которых уже нет в базе
+    @AfterEach
+    void clearCachesAndIndexes() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        indexedItemIds.forEach(itemId -> {
+            itemSearchIndex.remove(itemId);
+            itemSuggestIndex.remove(itemId);
+            itemSimilarityIndex.remove(itemId);
+        });
     }
 
     @Test
@@ -45,4 +76,60 @@ public class ItemServiceIT {
 
         assertEquals(expectedItem, actualItem);
     }
+
+    @Test
+    void getItemByIdTest_whenItemViewed_shouldCacheUntilItemUpdated() {
+        Cache itemsCache = cacheManager.getCache(CacheConfig.ITEMS);
+
+        ItemOutDto cachedItem = itemService.getItemById(apple.getId());
+
+        assertEquals(cachedItem, itemsCache.get(apple.getId(), ItemOutDto.class));
+        assertSame(cachedItem, itemService.getItemById(apple.getId()));
+
+        itemService.updateItem(petr.getId(), apple.getId(), new UpdateItemRequest("green apple", null, null));
+
+        assertNull(itemsCache.get(apple.getId()));
+        assertEquals("green apple", itemService.getItemById(apple.getId()).getName());
+    }
+
+    @Test
+    void getItemsByTextTest_whenSameNormalizedText_shouldReuseCachedResultUntilItemCreated() {
+        Item pear = createItem("pear", "fruit");
+
+        List<Item> firstResult = itemService.getItemsByText("  FRUIT ", false, false, 0, 10);
+
+        assertSame(firstResult, itemService.getItemsByText("fruit", false, false, 0, 10));
+        assertEquals(List.of(pear.getId()), firstResult.stream().map(Item::getId).toList());
+
+        Item plum = createItem("plum", "fruit");
+
+        assertEquals(List.of(pear.getId(), plum.getId()), itemService.getItemsByText("fruit", false, false, 0, 10).stream()
+                .map(Item::getId)
+                .toList());
+    }
+
+    @Test
+    void getItemsByTextTest_whenFoundItemUpdated_shouldEvictCachedResult() {
+        Cache searchCache = cacheManager.getCache(CacheConfig.ITEM_SEARCH);
+        Item pear = createItem("pear", "fruit");
+
+        List<Item> cachedResult = itemService.getItemsByText("fruit", false, false, 0, 10);
+
+        assertSame(cachedResult, searchCache.get("fruit:false:false:0:10", List.class));
+
+        itemService.updateItem(petr.getId(), pear.getId(), new UpdateItemRequest(null, "sweet", null));
+
+        // После обновления вещи закэшированный результат удален и поиск видит новое описание
+        assertNull(searchCache.get("fruit:false:false:0:10"));
+        assertEquals(List.of(), itemService.getItemsByText("fruit", false, false, 0, 10));
+        assertEquals(List.of(pear.getId()), itemService.getItemsByText("sweet", false, false, 0, 10).stream()
+                .map(Item::getId)
+                .toList());
+    }
+
+    private Item createItem(String name, String description) {
+        Item item = itemService.createItem(new Item(null, name, description, true, null, null), petr.getId(), null);
+        indexedItemIds.add(item.getId());
+        return item;
+    }
 }
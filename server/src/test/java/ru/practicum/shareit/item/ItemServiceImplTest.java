@@ -5,13 +5,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.OffsetPageRequest;
+import ru.practicum.shareit.booking.BookedInterval;
 import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingAvailabilityIndex;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingRole;
 import ru.practicum.shareit.booking.BookingState;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.DataAccessException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.dto.FreeSlotDto;
 import ru.practicum.shareit.item.dto.ItemOutDto;
+import ru.practicum.shareit.item.dto.ItemSearchResultDto;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
@@ -20,13 +28,18 @@ import ru.practicum.shareit.request.ItemRequestRepository;
 import ru.practicum.shareit.user.UserRepository;
 import ru.practicum.shareit.user.model.User;
 
+import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -41,6 +54,14 @@ class ItemServiceImplTest {
     private BookingRepository bookingRepository;
     @Mock
     private ItemRequestRepository itemRequestRepository;
+    @Mock
+    private ItemSearchIndex itemSearchIndex;
+    @Mock
+    private ItemSuggestIndex itemSuggestIndex;
+    @Mock
+    private ItemSimilarityIndex itemSimilarityIndex;
+    @Mock
+    private BookingAvailabilityIndex bookingAvailabilityIndex;
 
     @InjectMocks
     private ItemServiceImpl itemService;
@@ -58,6 +79,9 @@ class ItemServiceImplTest {
 
         assertEquals(item, actualItem);
         verify(itemRepository, times(1)).save(item);
+        verify(itemSearchIndex, times(1)).add(item);
+        verify(itemSuggestIndex, times(1)).add(item);
+        verify(itemSimilarityIndex, times(1)).add(item);
     }
 
     @Test
@@ -194,14 +218,11 @@ class ItemServiceImplTest {
         Item item1 = new Item(1L, "itemName", "itemDescription", true, booker, null);
         Item item2 = new Item(2L, "itemName2", "itemDescription2", true, booker, null);
         List<Item> items = List.of(item1, item2);
-        // Создаем бронирования пользователя
-        ZonedDateTime time1 = ZonedDateTime.now().minusMinutes(8);
-        ZonedDateTime time2 = ZonedDateTime.now().minusMinutes(7);
-        ZonedDateTime time3 = ZonedDateTime.now().plusMinutes(5);
-        ZonedDateTime time4 = ZonedDateTime.now().plusMinutes(6);
-        Booking booking1 = new Booking(1L, time1, time2, item1, booker, BookingState.WAITING);
-        Booking booking2 = new Booking(2L, time3, time4, item2, booker, BookingState.WAITING);
-        List<Booking> bookings = List.of(booking1, booking2);
+        // Даты бронирований уже хранятся в вещах
+        ZonedDateTime time2 = ZonedDateTime.now(ZoneOffset.UTC).minusMinutes(7);
+        ZonedDateTime time3 = ZonedDateTime.now(ZoneOffset.UTC).plusMinutes(5);
+        item1.setLastBookingEnd(time2);
+        item2.setNextBookingStart(time3);
         // Создаем комментарии
         Comment comment1 = new Comment(1L, "comment1Text", item1, booker, ZonedDateTime.now());
         Comment comment2 = new Comment(2L, "comment2Text", item2, booker, ZonedDateTime.now());
@@ -217,13 +238,14 @@ class ItemServiceImplTest {
         expectedItems.get(1).setComments(List.of(CommentMapper.mapToCommentResponseDto(comment2)));
 
         when(userRepository.findById(booker.getId())).thenReturn(Optional.of(booker));
-        when(itemRepository.findAllByOwnerId(booker.getId())).thenReturn(items);
-        when(bookingRepository.findAllByItemOwnerIdOrderByStartDesc(booker.getId())).thenReturn(bookings);
-        when(commentRepository.findAll()).thenReturn(comments);
+        when(itemRepository.findAllByOwnerIdAndIdGreaterThanOrderByIdAsc(booker.getId(), 0L, Limit.of(10)))
+                .thenReturn(items);
+        when(commentRepository.findAllByItemIdIn(List.of(1L, 2L))).thenReturn(comments);
 
-        List<ItemOutDto> actualItems = itemService.getItemsByUserId(booker.getId());
+        List<ItemOutDto> actualItems = itemService.getItemsByUserId(booker.getId(), null, 10);
 
         assertEquals(expectedItems, actualItems);
+        verifyNoInteractions(bookingRepository);
     }
 
     // Успешно когда есть вещи без бронирований и комментариев
@@ -239,11 +261,11 @@ class ItemServiceImplTest {
                 ItemMapper.mapToItemOutDto(item2)
         );
         when(userRepository.findById(booker.getId())).thenReturn(Optional.of(booker));
-        when(itemRepository.findAllByOwnerId(booker.getId())).thenReturn(items);
-        when(bookingRepository.findAllByItemOwnerIdOrderByStartDesc(booker.getId())).thenReturn(List.of());
-        when(commentRepository.findAll()).thenReturn(List.of());
+        when(itemRepository.findAllByOwnerIdAndIdGreaterThanOrderByIdAsc(booker.getId(), 0L, Limit.of(10)))
+                .thenReturn(items);
+        when(commentRepository.findAllByItemIdIn(List.of(1L, 2L))).thenReturn(List.of());
 
-        List<ItemOutDto> actualItems = itemService.getItemsByUserId(booker.getId());
+        List<ItemOutDto> actualItems = itemService.getItemsByUserId(booker.getId(), null, 10);
 
         assertEquals(expectedItems, actualItems);
     }
@@ -254,7 +276,7 @@ class ItemServiceImplTest {
         long userId = 1L;
         when(userRepository.findById(userId)).thenReturn(Optional.empty());
 
-        assertThrows(NotFoundException.class, () -> itemService.getItemsByUserId(userId));
+        assertThrows(NotFoundException.class, () -> itemService.getItemsByUserId(userId, null, 10));
     }
 
     // Исключение когда у пользователя нет вещей
@@ -263,9 +285,25 @@ class ItemServiceImplTest {
         long userId = 1L;
         User user = new User();
         when(userRepository.findById(userId)).thenReturn(Optional.of(user));
-        when(itemRepository.findAllByOwnerId(userId)).thenReturn(List.of());
+        when(itemRepository.findAllByOwnerIdAndIdGreaterThanOrderByIdAsc(userId, 0L, Limit.of(10)))
+                .thenReturn(List.of());
+
+        assertThrows(NotFoundException.class, () -> itemService.getItemsByUserId(userId, null, 10));
+    }
+
+    // Пустой список когда страницы вещей закончились
+    @Test
+    void getItemsByUserIdTest_whenNextPageEmpty_shouldReturnEmptyList() {
+        long userId = 1L;
+        User user = new User();
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(itemRepository.findAllByOwnerIdAndIdGreaterThanOrderByIdAsc(userId, 5L, Limit.of(10)))
+                .thenReturn(List.of());
 
-        assertThrows(NotFoundException.class, () -> itemService.getItemsByUserId(userId));
+        List<ItemOutDto> actualItems = itemService.getItemsByUserId(userId, 5L, 10);
+
+        assertEquals(List.of(), actualItems);
+        verify(commentRepository, never()).findAllByItemIdIn(anyList());
     }
 
     // Успешно когда есть вещь с комментариями
@@ -295,6 +333,7 @@ class ItemServiceImplTest {
         long itemId = 1L;
         User owner = new User(1L, "userName1", "email1@email.com");
         Item item = new Item(1L, "itemName", "itemDescription", true, owner, null);
+        item.setNextBookingStart(ZonedDateTime.now(ZoneOffset.UTC).plusHours(1));
         ItemOutDto expectedDto = ItemMapper.mapToItemOutDto(item);
         when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
         when(commentRepository.findAllByItemId(itemId)).thenReturn(List.of());
@@ -302,6 +341,8 @@ class ItemServiceImplTest {
         ItemOutDto actualDto = itemService.getItemById(itemId);
 
         assertEquals(expectedDto, actualDto);
+        // Даты бронирований чужой вещи не показываются
+        assertNull(actualDto.getNextBooking());
         verify(commentRepository, times(1)).findAllByItemId(itemId);
     }
 
@@ -324,6 +365,9 @@ class ItemServiceImplTest {
         itemService.deleteItem(owner.getId(), item.getId());
 
         verify(itemRepository, times(1)).delete(item);
+        verify(itemSearchIndex, times(1)).remove(item.getId());
+        verify(itemSuggestIndex, times(1)).remove(item.getId());
+        verify(itemSimilarityIndex, times(1)).remove(item.getId());
     }
 
     @Test
@@ -349,32 +393,117 @@ class ItemServiceImplTest {
     }
 
     @Test
-    void getItemsByTextTest_whenTextExistsAndItemsAvailable_shouldReturnItems() {
+    void getItemsByTextTest_whenIndexFindsItems_shouldReturnItemsInIndexOrder() {
         User owner = new User();
         String text = "text";
         Item item1 = new Item(1L, "itemTeXtName", "itemDescription", true, owner, null);
-        Item item2 = new Item(1L, "itemName", "itemDescriptionteXT", false, owner, null);
-        Item item3 = new Item(1L, "itemName", "itemDescriptionteXT", true, owner, null);
-        List<Item> items = List.of(item1, item2, item3);
+        Item item3 = new Item(3L, "itemName", "itemDescriptionteXT", true, owner, null);
         List<Item> expectedItems = List.of(item1, item3);
-        when(itemRepository.findItemsByText(text)).thenReturn(items);
+        when(itemSearchIndex.isEnabled()).thenReturn(true);
+        when(itemSearchIndex.search(text, false, 0, 10)).thenReturn(List.of(1L, 3L));
+        when(itemRepository.findAllByIdIn(List.of(1L, 3L))).thenReturn(List.of(item3, item1));
+
+        List<Item> actualItems = itemService.getItemsByText(text, false, false, 0, 10);
+
+        assertEquals(expectedItems, actualItems);
+        verify(itemRepository, never()).findAvailableItemsByText(anyList(), any(Pageable.class));
+    }
 
-        List<Item> actualItems = itemService.getItemsByText(text);
+    @Test
+    void getItemsByTextTest_whenRanked_shouldReturnItemsInRelevanceOrder() {
+        User owner = new User();
+        String text = "text";
+        Item item1 = new Item(1L, "itemName", "itemDescriptionText", true, owner, null);
+        Item item3 = new Item(3L, "itemTextName", "itemDescription", true, owner, null);
+        List<Item> expectedItems = List.of(item3, item1);
+        when(itemSearchIndex.isEnabled()).thenReturn(true);
+        when(itemSearchIndex.searchRanked(text, false, 0, 20)).thenReturn(List.of(3L, 1L));
+        when(itemRepository.findAllByIdIn(List.of(3L, 1L))).thenReturn(List.of(item1, item3));
+
+        List<Item> actualItems = itemService.getItemsByText(text, true, false, 0, 20);
 
         assertEquals(expectedItems, actualItems);
-        verify(itemRepository, times(1)).findItemsByText(text);
+        verify(itemSearchIndex, never()).search(anyString(), anyBoolean(), anyLong(), anyInt());
+    }
+
+    @Test
+    void getItemsByTextTest_whenFuzzy_shouldSearchIndexWithTypos() {
+        User owner = new User();
+        String text = "txet";
+        Item item = new Item(1L, "itemName", "text", true, owner, null);
+        when(itemSearchIndex.isEnabled()).thenReturn(true);
+        when(itemSearchIndex.search(text, true, 0, 10)).thenReturn(List.of(1L));
+        when(itemRepository.findAllByIdIn(List.of(1L))).thenReturn(List.of(item));
+
+        List<Item> actualItems = itemService.getItemsByText(text, false, true, 0, 10);
+
+        assertEquals(List.of(item), actualItems);
     }
 
     @Test
     void getItemsByTextTest_whenTextNotExists_shouldReturnEmptyList() {
         String text = "text";
         List<Item> expectedItems = List.of();
-        when(itemRepository.findItemsByText(text)).thenReturn(List.of());
+        when(itemSearchIndex.isEnabled()).thenReturn(true);
+        when(itemSearchIndex.search(text, false, 0, 10)).thenReturn(List.of());
 
-        List<Item> actualItems = itemService.getItemsByText(text);
+        List<Item> actualItems = itemService.getItemsByText(text, false, false, 0, 10);
 
         assertEquals(expectedItems, actualItems);
-        verify(itemRepository, times(1)).findItemsByText(text);
+        verify(itemRepository, never()).findAllByIdIn(anyList());
+    }
+
+    @Test
+    void getItemsByTextTest_whenDatabaseMode_shouldReturnPageFromRepository() {
+        User owner = new User();
+        String text = "text";
+        Item item3 = new Item(3L, "itemName", "itemDescriptionteXT", true, owner, null);
+        List<Item> expectedItems = List.of(item3);
+        when(itemSearchIndex.isEnabled()).thenReturn(false);
+        when(itemRepository.findAvailableItemsByText(List.of("%text%"), OffsetPageRequest.of(2, 2))).thenReturn(expectedItems);
+
+        List<Item> actualItems = itemService.getItemsByText(text, false, false, 2, 2);
+
+        assertEquals(expectedItems, actualItems);
+        verify(itemSearchIndex, never()).search(anyString(), anyBoolean(), anyLong(), anyInt());
+    }
+
+    @Test
+    void getItemsByTextTest_whenDatabaseModeAndWordForms_shouldSearchByStems() {
+        User owner = new User();
+        String text = " Дрели Ударные ";
+        Item item = new Item(3L, "Дрель ударная", "itemDescription", true, owner, null);
+        List<Item> expectedItems = List.of(item);
+        when(itemSearchIndex.isEnabled()).thenReturn(false);
+        when(itemRepository.findAvailableItemsByText(List.of("%дрел%", "%ударн%"),
+                OffsetPageRequest.of(2, 2))).thenReturn(expectedItems);
+
+        List<Item> actualItems = itemService.getItemsByText(text, false, false, 2, 2);
+
+        assertEquals(expectedItems, actualItems);
+        verify(itemSearchIndex, never()).search(anyString(), anyBoolean(), anyLong(), anyInt());
+    }
+
+    @Test
+    void getItemsByTextTest_whenFromNotMultipleOfSize_shouldPassOffsetAsIs() {
+        when(itemSearchIndex.isEnabled()).thenReturn(true);
+        when(itemSearchIndex.search("text", false, 5, 10)).thenReturn(List.of());
+
+        itemService.getItemsByText("text", false, false, 5, 10);
+
+        verify(itemSearchIndex, times(1)).search("text", false, 5, 10);
+    }
+
+    @Test
+    void getItemsByTextTest_whenSizeNotPositiveOrFromNegative_shouldThrowBadRequestException() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        assertThrows(BadRequestException.class, () -> itemService.getItemsByText("text", false, false, 0, 0));
+        assertThrows(BadRequestException.class, () -> itemService.getItemsByText("text", false, false, -1, 10));
+        assertThrows(BadRequestException.class, () -> itemService.getFreeItemsByText("text", false, false,
+                start, start.plusDays(1), 0, 0));
+        assertThrows(BadRequestException.class, () -> itemService.getItemsByTextFaceted("text",
+                new ItemSearchFilter(null, null, null), 0, 0));
+        verify(itemSearchIndex, never()).search(anyString(), anyBoolean(), anyLong(), anyInt());
     }
 
     @Test
@@ -382,12 +511,239 @@ class ItemServiceImplTest {
         String text = "";
         List<Item> expectedItems = List.of();
 
-        List<Item> actualItems = itemService.getItemsByText(text);
+        List<Item> actualItems = itemService.getItemsByText(text, false, false, 0, 10);
 
         assertEquals(expectedItems, actualItems);
-        verify(itemRepository, never()).findItemsByText(anyString());
+        verify(itemSearchIndex, never()).search(anyString(), anyBoolean(), anyLong(), anyInt());
     }
 
+    @Test
+    void getItemNameSuggestionsTest_whenPrefixValid_shouldReturnSuggestions() {
+        when(itemSuggestIndex.suggest("дре", 5)).thenReturn(List.of("Дрель"));
+
+        List<String> actualNames = itemService.getItemNameSuggestions("дре", 5);
+
+        assertEquals(List.of("Дрель"), actualNames);
+    }
+
+    @Test
+    void getItemNameSuggestionsTest_whenPrefixBlank_shouldReturnEmptyList() {
+        List<String> actualNames = itemService.getItemNameSuggestions(" ", 5);
+
+        assertEquals(List.of(), actualNames);
+        verify(itemSuggestIndex, never()).suggest(anyString(), anyInt());
+    }
+
+    @Test
+    void getItemNameSuggestionsTest_whenSizeNotPositive_shouldThrowBadRequestException() {
+        assertThrows(BadRequestException.class, () -> itemService.getItemNameSuggestions("дре", 0));
+        verify(itemSuggestIndex, never()).suggest(anyString(), anyInt());
+    }
+
+    @Test
+    void getItemsByTextFacetedTest_whenIndexEnabled_shouldCountFacetsExceptOwnFilter() {
+        User owner = new User(1L, "userName", "email@email.com");
+        Item item = new Item(1L, "itemName", "text", true, owner, null);
+        ItemSearchFilter filter = new ItemSearchFilter(true, null, 1L);
+        when(itemSearchIndex.isEnabled()).thenReturn(true);
+        when(itemSearchIndex.searchFaceted("text", filter, 0, 10)).thenReturn(new ItemSearchIndex.FacetedSearch(
+                List.of(1L), List.of(
+                new ItemFacetGroup(true, 1L, 3L, 1L),
+                new ItemFacetGroup(false, 1L, 2L, 2L),
+                new ItemFacetGroup(true, 2L, 4L, 0L))));
+        when(itemRepository.findAllByIdIn(List.of(1L))).thenReturn(List.of(item));
+
+        ItemSearchResultDto result = itemService.getItemsByTextFaceted(" TEXT ", filter, 0, 10);
+
+        assertEquals(List.of(ItemMapper.mapToItemOutDto(item)), result.getItems());
+        // Доступность считается с учетом владельца, владельцы - с учетом доступности
+        assertEquals(Map.of(true, 3L, false, 2L), result.getFacets().getAvailable());
+        assertEquals(Map.of(true, 1L, false, 2L), result.getFacets().getHasRequest());
+        assertEquals(List.of(2L, 1L), List.copyOf(result.getFacets().getOwners().keySet()));
+        assertEquals(Map.of(1L, 3L, 2L, 4L), result.getFacets().getOwners());
+    }
+
+    @Test
+    void getItemsByTextFacetedTest_whenDatabaseMode_shouldUseTwoQueries() {
+        User owner = new User(1L, "userName", "email@email.com");
+        Item item = new Item(1L, "itemName", "text", true, owner, null);
+        ItemSearchFilter filter = new ItemSearchFilter(null, false, null);
+        when(itemSearchIndex.isEnabled()).thenReturn(false);
+        when(itemRepository.findItemsByTextAndFilter(List.of("%text%"), null, false, null, OffsetPageRequest.of(0, 10)))
+                .thenReturn(List.of(item));
+        when(itemRepository.countFacetGroupsByText(List.of("%text%")))
+                .thenReturn(List.of(new ItemFacetGroup(true, 1L, 3L, 1L)));
+
+        ItemSearchResultDto result = itemService.getItemsByTextFaceted("text", filter, 0, 10);
+
+        assertEquals(List.of(ItemMapper.mapToItemOutDto(item)), result.getItems());
+        assertEquals(Map.of(true, 2L, false, 0L), result.getFacets().getAvailable());
+        assertEquals(Map.of(true, 1L, false, 2L), result.getFacets().getHasRequest());
+        assertEquals(Map.of(1L, 2L), result.getFacets().getOwners());
+        verify(itemSearchIndex, never()).searchFaceted(anyString(), any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void getSimilarItemsTest_whenItemExists_shouldReturnItemsInSimilarityOrder() {
+        User owner = new User();
+        Item item2 = new Item(2L, "itemName2", "itemDescription2", true, owner, null);
+        Item item3 = new Item(3L, "itemName3", "itemDescription3", true, owner, null);
+        when(itemRepository.existsById(1L)).thenReturn(true);
+        when(itemSimilarityIndex.findSimilar(1L, 5)).thenReturn(List.of(3L, 2L));
+        when(itemRepository.findAllByIdIn(List.of(3L, 2L))).thenReturn(List.of(item2, item3));
+
+        List<Item> actualItems = itemService.getSimilarItems(1L, 5);
+
+        assertEquals(List.of(item3, item2), actualItems);
+    }
+
+    @Test
+    void getSimilarItemsTest_whenItemNotExists_shouldThrowNotFoundException() {
+        when(itemRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(NotFoundException.class, () -> itemService.getSimilarItems(1L, 5));
+        verify(itemSimilarityIndex, never()).findSimilar(anyLong(), anyInt());
+    }
+
+    @Test
+    void getFreeItemsByTextTest_whenIndexEnabled_shouldDropBookedItemsBeforePaging() {
+        Item item4 = new Item(4L, "itemName4", "itemDescription4", true, new User(), null);
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        LocalDateTime end = start.plusDays(2);
+        when(itemSearchIndex.isEnabled()).thenReturn(true);
+        when(itemSearchIndex.search("дрель", false, 0, 500)).thenReturn(List.of(1L, 2L, 3L, 4L));
+        when(bookingRepository.findBookedItemIds(List.of(1L, 2L, 3L, 4L), BookingState.REJECTED,
+                start.atZone(ZoneOffset.UTC), end.atZone(ZoneOffset.UTC))).thenReturn(List.of(2L));
+        when(itemRepository.findAllByIdIn(List.of(4L))).thenReturn(List.of(item4));
+
+        // Вторая страница по две вещи среди свободных вещей 1, 3, 4
+        List<Item> actualItems = itemService.getFreeItemsByText("Дрель", false, false, start, end, 2, 2);
+
+        assertEquals(List.of(item4), actualItems);
+    }
+
+    @Test
+    void getFreeItemsByTextTest_whenManyMatches_shouldCheckChunksUntilPageFilled() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        LocalDateTime end = start.plusDays(2);
+        List<Long> matchedIds = LongStream.rangeClosed(1, 1200).boxed().toList();
+        when(itemSearchIndex.isEnabled()).thenReturn(true);
+        // Индекс отдает найденные вещи окнами: сначала первые 500, затем следующие 500
+        when(itemSearchIndex.search("дрель", false, 0, 500)).thenReturn(matchedIds.subList(0, 500));
+        when(itemSearchIndex.search("дрель", false, 500, 500)).thenReturn(matchedIds.subList(500, 1000));
+        // В первой части заняты все вещи, кроме пяти последних, во второй свободны все
+        when(bookingRepository.findBookedItemIds(matchedIds.subList(0, 500), BookingState.REJECTED,
+                start.atZone(ZoneOffset.UTC), end.atZone(ZoneOffset.UTC)))
+                .thenReturn(matchedIds.subList(0, 495));
+        when(bookingRepository.findBookedItemIds(matchedIds.subList(500, 1000), BookingState.REJECTED,
+                start.atZone(ZoneOffset.UTC), end.atZone(ZoneOffset.UTC)))
+                .thenReturn(List.of());
+        List<Long> expectedIds = List.of(496L, 497L, 498L, 499L, 500L, 501L, 502L, 503L, 504L, 505L);
+        when(itemRepository.findAllByIdIn(expectedIds)).thenReturn(expectedIds.stream()
+                .map(id -> new Item(id, "itemName", "itemDescription", true, new User(), null))
+                .toList());
+
+        List<Item> actualItems = itemService.getFreeItemsByText("Дрель", false, false, start, end, 0, 10);
+
+        assertEquals(expectedIds, actualItems.stream().map(Item::getId).toList());
+        // Третья часть не запрашивается и не проверяется, страница уже заполнена
+        verify(bookingRepository, times(2)).findBookedItemIds(any(), any(), any(), any());
+        verify(itemSearchIndex, times(2)).search(eq("дрель"), eq(false), anyLong(), anyInt());
+    }
+
+    @Test
+    void getFreeItemsByTextTest_whenIndexDisabled_shouldUseAntiJoinQuery() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        LocalDateTime end = start.plusDays(2);
+        when(itemSearchIndex.isEnabled()).thenReturn(false);
+
+        itemService.getFreeItemsByText("дрели", true, false, start, end, 0, 10);
+
+        verify(itemRepository).findAvailableItemsByTextFreeBetweenRanked(List.of("%дрел%"), BookingState.REJECTED,
+                start.atZone(ZoneOffset.UTC), end.atZone(ZoneOffset.UTC), OffsetPageRequest.of(0, 10));
+        verify(bookingRepository, never()).findBookedItemIds(any(), any(), any(), any());
+    }
+
+    @Test
+    void getFreeItemsByTextTest_whenPeriodInvalid_shouldThrowBadRequestException() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+
+        assertThrows(BadRequestException.class,
+                () -> itemService.getFreeItemsByText("дрель", false, false, start, null, 0, 10));
+        assertThrows(BadRequestException.class,
+                () -> itemService.getFreeItemsByText("дрель", false, false, start, start.minusDays(1), 0, 10));
+    }
+
+    @Test
+    void getItemAvailabilityTest_whenBookingsOverlap_shouldReturnGapsBetweenMergedBookings() {
+        Item item = new Item(1L, "itemName", "itemDescription", true, new User(), null);
+        LocalDateTime from = LocalDateTime.now(ZoneOffset.UTC).plusDays(1).withNano(0);
+        LocalDateTime to = from.plusDays(10);
+        // Второе бронирование лежит внутри первого, третье начинается в день их окончания
+        List<BookedInterval> booked = List.of(
+                new BookedInterval(1L, from.plusDays(1).atZone(ZoneOffset.UTC), from.plusDays(4).atZone(ZoneOffset.UTC)),
+                new BookedInterval(2L, from.plusDays(2).atZone(ZoneOffset.UTC), from.plusDays(3).atZone(ZoneOffset.UTC)),
+                new BookedInterval(3L, from.plusDays(4).atZone(ZoneOffset.UTC), from.plusDays(5).atZone(ZoneOffset.UTC)),
+                new BookedInterval(4L, from.plusDays(7).atZone(ZoneOffset.UTC), from.plusDays(12).atZone(ZoneOffset.UTC))
+        );
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
+        when(bookingAvailabilityIndex.findBooked(1L, from.atZone(ZoneOffset.UTC), to.atZone(ZoneOffset.UTC)))
+                .thenReturn(booked);
+
+        List<FreeSlotDto> slots = itemService.getItemAvailability(1L, from, to);
+
+        // Промежутки не касаются бронирований, их можно забронировать целиком
+        assertEquals(List.of(
+                new FreeSlotDto(from, from.plusDays(1).minusSeconds(1)),
+                new FreeSlotDto(from.plusDays(5).plusSeconds(1), from.plusDays(7).minusSeconds(1))
+        ), slots);
+        for (FreeSlotDto slot : slots) {
+            assertTrue(booked.stream().noneMatch(interval ->
+                    !interval.getStart().isAfter(slot.getEnd().atZone(ZoneOffset.UTC))
+                            && !interval.getEnd().isBefore(slot.getStart().atZone(ZoneOffset.UTC))));
+        }
+    }
+
+    @Test
+    void getItemAvailabilityTest_whenNoBookings_shouldReturnWholePeriod() {
+        Item item = new Item(1L, "itemName", "itemDescription", true, new User(), null);
+        LocalDateTime from = LocalDateTime.now(ZoneOffset.UTC).plusDays(1).withNano(0);
+        LocalDateTime to = from.plusDays(1);
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
+        when(bookingAvailabilityIndex.findBooked(1L, from.atZone(ZoneOffset.UTC), to.atZone(ZoneOffset.UTC)))
+                .thenReturn(List.of());
+
+        assertEquals(List.of(new FreeSlotDto(from, to)), itemService.getItemAvailability(1L, from, to));
+    }
+
+    @Test
+    void getItemAvailabilityTest_whenItemNotAvailableOrPeriodPassed_shouldReturnEmptyList() {
+        Item item = new Item(1L, "itemName", "itemDescription", false, new User(), null);
+        LocalDateTime from = LocalDateTime.now(ZoneOffset.UTC).minusDays(2);
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
+
+        assertEquals(List.of(), itemService.getItemAvailability(1L, from, from.plusDays(5)));
+        item.setAvailable(true);
+        assertEquals(List.of(), itemService.getItemAvailability(1L, from, from.plusDays(1)));
+        verify(bookingAvailabilityIndex, never()).findBooked(anyLong(), any(), any());
+    }
+
+    @Test
+    void getItemAvailabilityTest_whenFromNotBeforeTo_shouldThrowBadRequestException() {
+        Item item = new Item(1L, "itemName", "itemDescription", true, new User(), null);
+        LocalDateTime from = LocalDateTime.now(ZoneOffset.UTC).plusDays(1);
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
+
+        assertThrows(BadRequestException.class, () -> itemService.getItemAvailability(1L, from, from));
+    }
+
+    @Test
+    void getItemAvailabilityTest_whenItemNotExists_shouldThrowNotFoundException() {
+        LocalDateTime from = LocalDateTime.now(ZoneOffset.UTC).plusDays(1);
+        when(itemRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> itemService.getItemAvailability(1L, from, from.plusDays(1)));
+    }
 
     @Test
     void createCommentTest_whenUserNotExists_shouldThrowNotFoundException() {
@@ -422,7 +778,8 @@ class ItemServiceImplTest {
         Comment comment = new Comment(1L, "comment1Text", item, user, time);
         when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
         when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
-        when(bookingRepository.findAllByBookerIdOrderByStartDesc(user.getId())).thenReturn(List.of());
+        when(bookingRepository.findBookings(eq(BookingRole.BOOKER), eq(user.getId()), eq(BookingState.ALL), any(),
+                eq(Pageable.unpaged()))).thenReturn(List.of());
 
         assertThrows(BadRequestException.class, () -> itemService.createComment(user.getId(), item.getId(), comment));
         verify(commentRepository, never()).save(comment);
@@ -437,7 +794,8 @@ class ItemServiceImplTest {
         Comment comment = new Comment(1L, "comment1Text", item, user, time);
         when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
         when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
-        when(bookingRepository.findAllByBookerIdOrderByStartDesc(user.getId())).thenReturn(List.of(booking));
+        when(bookingRepository.findBookings(eq(BookingRole.BOOKER), eq(user.getId()), eq(BookingState.ALL), any(),
+                eq(Pageable.unpaged()))).thenReturn(List.of(booking));
 
         assertThrows(BadRequestException.class, () -> itemService.createComment(user.getId(), item.getId(), comment));
         verify(commentRepository, never()).save(comment);
@@ -452,7 +810,8 @@ class ItemServiceImplTest {
         Comment expectedComment = new Comment(1L, "comment1Text", item, user, time);
         when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
         when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
-        when(bookingRepository.findAllByBookerIdOrderByStartDesc(user.getId())).thenReturn(List.of(booking));
+        when(bookingRepository.findBookings(eq(BookingRole.BOOKER), eq(user.getId()), eq(BookingState.ALL), any(),
+                eq(Pageable.unpaged()))).thenReturn(List.of(booking));
         when(commentRepository.save(expectedComment)).thenReturn(expectedComment);
 
         Comment actualComment = itemService.createComment(user.getId(), item.getId(), expectedComment);
@@ -0,0 +1,80 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ExtendWith(MockitoExtension.class)
+class ItemSimilarityIndexTest {
+    @Mock
+    private ItemRepository itemRepository;
+
+    @InjectMocks
+    private ItemSimilarityIndex itemSimilarityIndex;
+
+    private final User owner = new User(1L, "userName", "email@email.com");
+
+    @BeforeEach
+    void addItemsInIndex() {
+        itemSimilarityIndex.add(new Item(1L, "Дрель ударная", "Мощная дрель для бетона", true, owner, null));
+        itemSimilarityIndex.add(new Item(2L, "Дрель", "Аккумуляторная дрель", true, owner, null));
+        itemSimilarityIndex.add(new Item(3L, "Перфоратор", "Мощный, для бетона", true, owner, null));
+        itemSimilarityIndex.add(new Item(4L, "Палатка", "Четырехместная палатка для похода", true, owner, null));
+        itemSimilarityIndex.add(new Item(5L, "Дрели", "Старая ударная дрель", false, owner, null));
+    }
+
+    @Test
+    void findSimilarTest_shouldReturnAvailableItemsBySimilarity() {
+        // 3: общие "мощн", "для", "бетон", 2: общая "дрел", 4: только частая "для"
+        assertEquals(List.of(3L, 2L, 4L), itemSimilarityIndex.findSimilar(1L, 10));
+        assertEquals(List.of(3L), itemSimilarityIndex.findSimilar(1L, 1));
+        // Недоступная вещь может быть исходной, но не попадает в результат
+        assertEquals(List.of(1L, 2L), itemSimilarityIndex.findSimilar(5L, 2));
+    }
+
+    @Test
+    void findSimilarTest_whenNoCommonWords_shouldReturnEmptyList() {
+        itemSimilarityIndex.add(new Item(6L, "Байдарка", "Надувная", true, owner, null));
+
+        assertEquals(List.of(), itemSimilarityIndex.findSimilar(6L, 10));
+        assertEquals(List.of(), itemSimilarityIndex.findSimilar(99L, 10));
+    }
+
+    @Test
+    void findSimilarTest_whenItemsUpdatedAndRemoved_shouldUseNewVectors() {
+        itemSimilarityIndex.add(new Item(4L, "Дрель", "Ударная дрель для бетона", true, owner, null));
+        itemSimilarityIndex.remove(2L);
+
+        assertEquals(List.of(4L, 3L), itemSimilarityIndex.findSimilar(1L, 10));
+    }
+
+    @Test
+    void findSimilarTest_whenManyCandidates_shouldScoreRarestTermsFirstUpToLimit() {
+        // У вещи 100 двенадцать основ, каждая есть у 100 других вещей, и одна редкая основа
+        StringBuilder words = new StringBuilder("rare");
+        for (int word = 1; word <= 12; word++) {
+            words.append(" w").append(word);
+            for (int i = 0; i < 100; i++) {
+                long id = 1000L + word * 100L + i;
+                itemSimilarityIndex.add(new Item(id, "w" + word, "item " + id, true, owner, null));
+            }
+        }
+        itemSimilarityIndex.add(new Item(100L, "source", words.toString(), true, owner, null));
+        itemSimilarityIndex.add(new Item(200L, "target", "rare", true, owner, null));
+
+        List<Long> similar = itemSimilarityIndex.findSimilar(100L, 2000);
+
+        // Оценивается не больше 1000 кандидатов, вещь с редкой основой набирается первой и оказывается самой похожей
+        assertEquals(1000, similar.size());
+        assertEquals(200L, similar.getFirst());
+    }
+}
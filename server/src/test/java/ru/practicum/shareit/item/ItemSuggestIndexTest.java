@@ -0,0 +1,77 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ExtendWith(MockitoExtension.class)
+class ItemSuggestIndexTest {
+    @Mock
+    private ItemRepository itemRepository;
+
+    @InjectMocks
+    private ItemSuggestIndex itemSuggestIndex;
+
+    private final User owner = new User(1L, "userName", "email@email.com");
+
+    @BeforeEach
+    void addItemsInIndex() {
+        itemSuggestIndex.add(new Item(1L, "Дрель", "Мощная", true, owner, null));
+        itemSuggestIndex.add(new Item(2L, "Ударная дрель", "Старая", true, owner, null));
+        itemSuggestIndex.add(new Item(3L, "Дрель", "Новая", true, owner, null));
+        itemSuggestIndex.add(new Item(4L, "Древний сундук", "Тяжелый", false, owner, null));
+        itemSuggestIndex.add(new Item(5L, "Отвертка", "Крестовая", true, owner, null));
+    }
+
+    @Test
+    void suggestTest_whenPrefixMatchesWords_shouldReturnDistinctAvailableNames() {
+        assertEquals(List.of("Дрель", "Ударная дрель"), itemSuggestIndex.suggest("ДРЕ", 10));
+        assertEquals(List.of("Ударная дрель"), itemSuggestIndex.suggest("уд", 10));
+        assertEquals(List.of(), itemSuggestIndex.suggest("рель", 10));
+    }
+
+    @Test
+    void suggestTest_whenLimitReached_shouldReturnOnlyLimit() {
+        assertEquals(List.of("Дрель"), itemSuggestIndex.suggest("д", 1));
+    }
+
+    @Test
+    void suggestTest_whenItemsUpdatedAndRemoved_shouldFollowChanges() {
+        itemSuggestIndex.remove(1L);
+        assertEquals(List.of("Дрель", "Ударная дрель"), itemSuggestIndex.suggest("дре", 10));
+
+        itemSuggestIndex.remove(3L);
+        itemSuggestIndex.add(new Item(4L, "Древний сундук", "Тяжелый", true, owner, null));
+        itemSuggestIndex.add(new Item(2L, "Перфоратор", "Старый", true, owner, null));
+
+        assertEquals(List.of("Древний сундук"), itemSuggestIndex.suggest("дре", 10));
+    }
+
+    @Test
+    void suggestTest_whenMoreNamesThanLimit_shouldReturnMostPopular() {
+        itemSuggestIndex.add(new Item(6L, "Дрезина", "Ручная", true, owner, null));
+        itemSuggestIndex.add(new Item(7L, "Ударная дрель", "Новая", true, owner, null));
+        itemSuggestIndex.add(new Item(8L, "Ударная дрель", "Синяя", true, owner, null));
+
+        // "Ударная дрель" у трех вещей, "Дрель" у двух, "Дрезина" у одной, хотя по алфавиту она первая
+        assertEquals(List.of("Ударная дрель", "Дрель"), itemSuggestIndex.suggest("дре", 2));
+        assertEquals(List.of("Ударная дрель", "Дрель", "Дрезина"), itemSuggestIndex.suggest("дре", 10));
+    }
+
+    @Test
+    void suggestTest_whenPrefixNotNormalized_shouldNormalizeLikeSearch() {
+        itemSuggestIndex.add(new Item(6L, "Ёлочная  гирлянда", "Длинная", true, owner, null));
+
+        assertEquals(List.of("Ёлочная  гирлянда"), itemSuggestIndex.suggest("елоч", 10));
+        assertEquals(List.of("Ёлочная  гирлянда"), itemSuggestIndex.suggest("  ЁЛОЧНАЯ   ГИР", 10));
+    }
+}
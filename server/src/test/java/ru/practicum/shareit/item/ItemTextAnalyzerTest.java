@@ -0,0 +1,37 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ItemTextAnalyzerTest {
+    @Test
+    void stemsTest_whenRussianWordForms_shouldReturnSameStem() {
+        assertEquals(List.of("дрел", "дрел", "дрел"), ItemTextAnalyzer.stems("Дрель, дрели; ДРЕЛЬЮ"));
+        assertEquals(List.of("ударн", "ударн"), ItemTextAnalyzer.stems("ударная ударные"));
+        assertEquals(List.of("елк", "елк"), ItemTextAnalyzer.stems("ёлка елки"));
+    }
+
+    @Test
+    void stemsTest_whenEnglishWordForms_shouldReturnSameStem() {
+        assertEquals(List.of("drill", "drill", "drill"), ItemTextAnalyzer.stems("drill drills drilling"));
+        assertEquals(List.of("batter", "batter"), ItemTextAnalyzer.stems("battery batteries"));
+        assertEquals(List.of("class", "class"), ItemTextAnalyzer.stems("class classes"));
+    }
+
+    @Test
+    void stemsTest_whenWordShort_shouldNotCutWord() {
+        assertEquals(List.of("дом", "box", "12"), ItemTextAnalyzer.stems("дом box 12"));
+    }
+
+    @Test
+    void toLikePatternsTest() {
+        assertEquals(List.of("%дрел%", "%ударн%"), ItemTextAnalyzer.toLikePatterns("Дрели ударные дрель"));
+        assertEquals(List.of("%елк%"), ItemTextAnalyzer.toLikePatterns("Ёлки"));
+        assertEquals(List.of("%!?%"), ItemTextAnalyzer.toLikePatterns("!?"));
+        // Символы шаблона из запроса экранируются
+        assertEquals(List.of("%\\%\\_\\\\%"), ItemTextAnalyzer.toLikePatterns("%_\\"));
+    }
+}